@@ -0,0 +1,85 @@
+package ai.migrator.analysis;
+
+import ai.migrator.bench.SyntheticSources;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analysis of a synthetic module of {@code controllers} controllers (8 endpoints each, two DTOs of 12 fields per
+ * controller): parsing and classifying a single controller or DTO source file, the source analyzer over the whole
+ * module, and the bytecode analyzer over the module's compiled classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class AnalyzerBenchmark {
+
+    @Param({"4", "32", "128"})
+    public int controllers;
+
+    private final SpringSourceAnalyzer sourceAnalyzer = new SpringSourceAnalyzer();
+    private final SpringBytecodeAnalyzer bytecodeAnalyzer = new SpringBytecodeAnalyzer();
+
+    private Path root;
+    private ProjectLayout layout;
+    private Path controllerFile;
+    private Path dtoFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("analyzer-bench");
+        layout = SyntheticSources.compile(SyntheticSources.write(root, controllers, 8, controllers * 2, 12));
+        List<Path> sources = SyntheticSources.sources(layout.sourceDir());
+        controllerFile = sources.stream().filter(file -> file.toString().endsWith("Controller.java")).findFirst().orElseThrow();
+        dtoFile = sources.stream().filter(file -> file.toString().endsWith("Dto.java")).findFirst().orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyntheticSources.delete(root);
+    }
+
+    @Benchmark
+    public AnalysisResult parseController() {
+        AnalysisResult result = new AnalysisResult();
+        sourceAnalyzer.parseFile(controllerFile, result);
+        return result;
+    }
+
+    @Benchmark
+    public AnalysisResult parseDto() {
+        AnalysisResult result = new AnalysisResult();
+        sourceAnalyzer.parseFile(dtoFile, result);
+        return result;
+    }
+
+    @Benchmark
+    public AnalysisResult sourceModule() throws IOException {
+        return sourceAnalyzer.analyze(layout, false);
+    }
+
+    @Benchmark
+    public AnalysisResult bytecodeModule() {
+        return bytecodeAnalyzer.analyze(layout);
+    }
+}
@@ -0,0 +1,239 @@
+package ai.migrator.bench;
+
+import ai.migrator.analysis.ProjectLayout;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A Spring Boot module written to disk as Java sources, for the analyzer benchmarks: {@code controllers}
+ * controllers with {@code endpointsPerController} mapped methods each, a service and a repository per controller,
+ * and {@code dtos} DTOs alternating between Lombok {@code @Value} records and {@code @Data} classes with validation
+ * annotations. The shapes mirror {@link SyntheticSpecs}. {@link #compile} builds {@code target/classes} for the
+ * bytecode analyzer; Spring web and Lombok are not on the migrator's classpath, so minimal stand-ins for their
+ * annotations are compiled along with the module.
+ */
+public final class SyntheticSources {
+
+    private static final String PACKAGE = "com.example.shop";
+    private static final String WEB = "org.springframework.web.bind.annotation";
+    private static final String[] SCALARS = {"String", "Long", "Integer", "BigDecimal", "Boolean", "LocalDate"};
+
+    private SyntheticSources() {
+    }
+
+    /**
+     * Writes the module under {@code root}/src/main/java and returns its layout, without classes.
+     */
+    public static ProjectLayout write(Path root, int controllers, int endpointsPerController, int dtos,
+                                      int fieldsPerDto) throws IOException {
+        Path sourceDir = root.resolve("src/main/java");
+        for (int d = 0; d < dtos; d++) {
+            write(sourceDir, PACKAGE + ".dto", "Item" + d + "Dto", dto(d, fieldsPerDto));
+        }
+        for (int c = 0; c < controllers; c++) {
+            write(sourceDir, PACKAGE + ".web", "Resource" + c + "Controller",
+                controller(c, endpointsPerController, dtos));
+            write(sourceDir, PACKAGE + ".service", "Resource" + c + "Service", service(c, endpointsPerController, dtos));
+            write(sourceDir, PACKAGE + ".repository", "Resource" + c + "Repository", repository(c));
+        }
+        return new ProjectLayout(root.getFileName().toString(), root, sourceDir, null, null);
+    }
+
+    /**
+     * Compiles the module's sources to {@code root}/target/classes and returns the layout with its classes.
+     */
+    public static ProjectLayout compile(ProjectLayout layout) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("The bytecode benchmarks need a JDK to compile their fixtures");
+        }
+        Path stubDir = layout.root().resolve("stubs");
+        writeStubs(stubDir);
+        Path classesDir = layout.root().resolve("target/classes");
+        Files.createDirectories(classesDir);
+
+        List<String> args = new ArrayList<>(List.of(
+            "-d", classesDir.toString(),
+            "-classpath", System.getProperty("java.class.path"),
+            "-parameters", "-proc:none", "-nowarn"));
+        args.addAll(javaFiles(layout.sourceDir()));
+        args.addAll(javaFiles(stubDir));
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        if (compiler.run(null, null, errors, args.toArray(String[]::new)) != 0) {
+            throw new IllegalStateException("Failed to compile benchmark fixtures:\n" + errors);
+        }
+        return new ProjectLayout(layout.name(), layout.root(), layout.sourceDir(), null, classesDir);
+    }
+
+    /**
+     * Returns the {@code .java} files under {@code dir}, sorted.
+     */
+    public static List<Path> sources(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(file -> file.toString().endsWith(".java")).sorted().toList();
+        }
+    }
+
+    public static void delete(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static List<String> javaFiles(Path dir) throws IOException {
+        return sources(dir).stream().map(Path::toString).toList();
+    }
+
+    private static void write(Path sourceDir, String packageName, String className, String body) throws IOException {
+        Path dir = sourceDir.resolve(packageName.replace('.', '/'));
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve(className + ".java"), "package " + packageName + ";\n\n" + body);
+    }
+
+    private static String dto(int index, int fields) {
+        String name = "Item" + index + "Dto";
+        StringBuilder sb = new StringBuilder();
+        sb.append("import java.math.BigDecimal;\n")
+            .append("import java.time.LocalDate;\n")
+            .append("import java.util.List;\n")
+            .append("import java.util.Map;\n")
+            .append("import java.util.Optional;\n")
+            .append("import jakarta.validation.constraints.*;\n")
+            .append("import lombok.Data;\n")
+            .append("import lombok.Value;\n\n");
+        boolean record = index % 2 == 0;
+        List<String> declarations = new ArrayList<>(fields);
+        for (int f = 0; f < fields; f++) {
+            String type = switch (f % 4) {
+                case 0 -> SCALARS[f % SCALARS.length];
+                case 1 -> "List<Item" + (index % 17) + "Dto>";
+                case 2 -> "Map<String, List<Long>>";
+                default -> "Optional<String>";
+            };
+            String validation = f % 3 == 0 && type.equals("String") ? "@NotBlank @Size(min = 1, max = 120) " : "";
+            validation += f % 3 == 0 && !type.equals("String") ? "@NotNull " : "";
+            declarations.add(validation + type + " field" + f + "Value");
+        }
+        if (record) {
+            sb.append("@Value\npublic record ").append(name).append("(\n    ")
+                .append(String.join(",\n    ", declarations))
+                .append("\n) {\n}\n");
+        } else {
+            sb.append("@Data\npublic class ").append(name).append(" {\n");
+            for (String declaration : declarations) {
+                sb.append("    private ").append(declaration).append(";\n");
+            }
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+
+    private static String controller(int c, int endpoints, int dtos) {
+        String service = "Resource" + c + "Service";
+        StringBuilder sb = new StringBuilder();
+        if (dtos > 0) {
+            sb.append("import ").append(PACKAGE).append(".dto.*;\n");
+        }
+        sb.append("import ").append(PACKAGE).append(".service.").append(service).append(";\n")
+            .append("import ").append(WEB).append(".*;\n\n")
+            .append("import java.util.List;\n\n")
+            .append("@RestController\n")
+            .append("@RequestMapping(\"/api/resources").append(c).append("\")\n")
+            .append("public class Resource").append(c).append("Controller {\n\n")
+            .append("    private final ").append(service).append(" service;\n\n")
+            .append("    public Resource").append(c).append("Controller(").append(service).append(" service) {\n")
+            .append("        this.service = service;\n")
+            .append("    }\n");
+        for (int e = 0; e < endpoints; e++) {
+            String mapping = switch (e % 4) {
+                case 0 -> "GetMapping";
+                case 1 -> "PostMapping";
+                case 2 -> "PutMapping";
+                default -> "DeleteMapping";
+            };
+            String dto = dtos == 0 ? "String" : "Item" + ((c * 8 + e) % dtos) + "Dto";
+            String response = e % 3 == 0 ? "List<" + dto + ">" : dto;
+            sb.append("\n    @").append(mapping).append("(\"/{resourceId}/items").append(e).append("\")\n")
+                .append("    public ").append(response).append(" operation").append(e).append("OnResource(\n")
+                .append("            @PathVariable(\"resourceId\") Long resourceId,\n")
+                .append("            @RequestParam(name = \"page-size\", required = false) Integer pageSize,\n")
+                .append("            @RequestParam(name = \"sortBy\", required = false) String sortBy,\n")
+                .append("            @RequestHeader(\"X-Request-Id\") String requestId");
+            if (mapping.equals("PostMapping") || mapping.equals("PutMapping")) {
+                sb.append(",\n            @RequestBody ").append(dto).append(" payload");
+            }
+            sb.append(") {\n")
+                .append("        return null;\n")
+                .append("    }\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private static String service(int c, int methods, int dtos) {
+        StringBuilder sb = new StringBuilder();
+        if (dtos > 0) {
+            sb.append("import ").append(PACKAGE).append(".dto.*;\n");
+        }
+        sb.append("import org.springframework.stereotype.Service;\n\n")
+            .append("@Service\n")
+            .append("public class Resource").append(c).append("Service {\n");
+        for (int m = 0; m < methods; m++) {
+            String dto = dtos == 0 ? "String" : "Item" + (m % dtos) + "Dto";
+            sb.append("\n    public ").append(dto).append(" handle").append(m)
+                .append("(Long resourceId, ").append(dto).append(" payload) {\n")
+                .append("        return payload;\n")
+                .append("    }\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private static String repository(int c) {
+        return "import org.springframework.stereotype.Repository;\n\n"
+            + "@Repository\n"
+            + "public interface Resource" + c + "Repository {\n"
+            + "}\n";
+    }
+
+    private static void writeStubs(Path stubDir) throws IOException {
+        String retention = "import java.lang.annotation.Retention;\n"
+            + "import java.lang.annotation.RetentionPolicy;\n\n"
+            + "@Retention(RetentionPolicy.RUNTIME)\n";
+        write(stubDir, "lombok", "Data", "public @interface Data {\n}\n");
+        write(stubDir, "lombok", "Value", "public @interface Value {\n}\n");
+        write(stubDir, WEB, "RestController", retention + "public @interface RestController {\n}\n");
+        write(stubDir, WEB, "RequestBody", retention + "public @interface RequestBody {\n}\n");
+        write(stubDir, WEB, "RequestMethod", "public enum RequestMethod {\n    GET, POST, PUT, DELETE, PATCH\n}\n");
+        write(stubDir, WEB, "RequestMapping", retention + "public @interface RequestMapping {\n"
+            + "    String[] value() default {};\n"
+            + "    String[] path() default {};\n"
+            + "    RequestMethod[] method() default {};\n"
+            + "}\n");
+        for (String mapping : List.of("GetMapping", "PostMapping", "PutMapping", "DeleteMapping", "PatchMapping")) {
+            write(stubDir, WEB, mapping, retention + "public @interface " + mapping + " {\n"
+                + "    String[] value() default {};\n"
+                + "    String[] path() default {};\n"
+                + "}\n");
+        }
+        for (String param : List.of("PathVariable", "RequestParam", "RequestHeader")) {
+            write(stubDir, WEB, param, retention + "public @interface " + param + " {\n"
+                + "    String value() default \"\";\n"
+                + "    String name() default \"\";\n"
+                + "    boolean required() default true;\n"
+                + "}\n");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ai.migrator.bench;
+
+import ai.migrator.model.DtoSpec;
+import ai.migrator.model.EndpointSpec;
+import ai.migrator.model.FieldSpec;
+import ai.migrator.model.MethodParamSpec;
+import ai.migrator.model.MethodSpec;
+import ai.migrator.model.MigrationSpec;
+import ai.migrator.model.ParameterSpec;
+import ai.migrator.model.RepositorySpec;
+import ai.migrator.model.ServiceSpec;
+import ai.migrator.model.TypeRef;
+import ai.migrator.model.ValidationSpec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deterministic module specs of a chosen size for the benchmarks: every controller has the same shape of
+ * endpoints, every DTO a mix of scalar, collection, optional and validated fields, and endpoints reference DTOs
+ * round robin, so the specs exercise the same code paths as a real Spring project.
+ */
+public final class SyntheticSpecs {
+
+    private static final String PACKAGE = "com.example.shop";
+    private static final String[] SCALARS = {"String", "Long", "Integer", "BigDecimal", "Boolean", "LocalDate"};
+
+    private SyntheticSpecs() {
+    }
+
+    /**
+     * A module of {@code controllers} controllers with {@code endpointsPerController} endpoints each, and
+     * {@code dtos} DTOs of {@code fieldsPerDto} fields.
+     */
+    public static MigrationSpec module(String name, int controllers, int endpointsPerController, int dtos,
+                                       int fieldsPerDto) {
+        List<DtoSpec> dtoSpecs = new ArrayList<>(dtos);
+        for (int d = 0; d < dtos; d++) {
+            dtoSpecs.add(dto(d, fieldsPerDto));
+        }
+        List<EndpointSpec> endpoints = new ArrayList<>(controllers * endpointsPerController);
+        List<ServiceSpec> services = new ArrayList<>(controllers);
+        List<RepositorySpec> repositories = new ArrayList<>(controllers);
+        for (int c = 0; c < controllers; c++) {
+            String controller = PACKAGE + ".web.Resource" + c + "Controller";
+            String service = PACKAGE + ".service.Resource" + c + "Service";
+            for (int e = 0; e < endpointsPerController; e++) {
+                endpoints.add(endpoint(controller, service, c, e, dtos));
+            }
+            services.add(service(c, endpointsPerController));
+            repositories.add(new RepositorySpec("Resource" + c + "Repository", PACKAGE + ".repository"));
+        }
+        return new MigrationSpec("shop", name, endpoints, dtoSpecs, services, repositories,
+            Map.of("root", "/src/shop", "module", name));
+    }
+
+    /**
+     * A module sized so its pretty JSON is roughly {@code megabytes} MB.
+     */
+    public static MigrationSpec moduleOfSize(String name, int megabytes) {
+        // one controller with its 8 endpoints and 8 DTOs of 12 fields comes to about 40 KB of pretty JSON
+        int controllers = Math.max(1, megabytes * 25);
+        return module(name, controllers, 8, controllers * 8, 12);
+    }
+
+    private static DtoSpec dto(int index, int fields) {
+        List<FieldSpec> fieldSpecs = new ArrayList<>(fields);
+        for (int f = 0; f < fields; f++) {
+            TypeRef type = switch (f % 4) {
+                case 0 -> TypeRef.simple(SCALARS[f % SCALARS.length]);
+                case 1 -> TypeRef.collection("List", "Item" + (index % 17) + "Dto");
+                case 2 -> TypeRef.simple("Map<String, List<Long>>");
+                default -> TypeRef.simple("Optional<String>");
+            };
+            ValidationSpec validation = f % 3 == 0
+                ? new ValidationSpec(1, 120, null, null, null, null, null, null, true, true, f % 6 == 0, null)
+                : ValidationSpec.empty();
+            fieldSpecs.add(new FieldSpec("field" + f + "Value", type, f % 4 == 3, validation,
+                f % 5 == 0 ? "field_" + f : null));
+        }
+        return new DtoSpec("Item" + index + "Dto", PACKAGE + ".dto", fieldSpecs, index % 2 == 0);
+    }
+
+    private static EndpointSpec endpoint(String controller, String service, int c, int e, int dtos) {
+        String method = switch (e % 4) {
+            case 0 -> "GET";
+            case 1 -> "POST";
+            case 2 -> "PUT";
+            default -> "DELETE";
+        };
+        TypeRef dto = dtos == 0 ? TypeRef.simple("String") : TypeRef.simple("Item" + ((c * 8 + e) % dtos) + "Dto");
+        return EndpointSpec.builder()
+            .id(controller + "#op" + e)
+            .controllerClass(controller)
+            .controllerPath("/api/resources" + c)
+            .methodName("operation" + e + "OnResource")
+            .methodPath("/{resourceId}/items" + e)
+            .httpMethod(method)
+            .path("/api/resources" + c + "/{resourceId}/items" + e)
+            .statusCode(method.equals("POST") ? 201 : 200)
+            .requestBody(method.equals("POST") || method.equals("PUT") ? dto : null)
+            .responseBody(e % 3 == 0 ? TypeRef.collection("List", dto.name()) : dto)
+            .pathParams(List.of(new ParameterSpec("resourceId", TypeRef.simple("Long"), true, "path", false)))
+            .queryParams(List.of(
+                new ParameterSpec("page-size", TypeRef.simple("Integer"), false, "query", true),
+                new ParameterSpec("sortBy", TypeRef.simple("String"), false, "query", true)))
+            .headerParams(List.of(new ParameterSpec("X-Request-Id", TypeRef.simple("String"), true, "header", false)))
+            .controllerServices(List.of(service))
+            .customAnnotations(List.of())
+            .build();
+    }
+
+    private static ServiceSpec service(int c, int methods) {
+        List<MethodSpec> methodSpecs = new ArrayList<>(methods);
+        for (int m = 0; m < methods; m++) {
+            methodSpecs.add(new MethodSpec("handle" + m, List.of(
+                new MethodParamSpec("resourceId", TypeRef.simple("Long"), false),
+                new MethodParamSpec("payload", TypeRef.simple("Item" + m + "Dto"), true)),
+                TypeRef.simple("Item" + m + "Dto")));
+        }
+        return new ServiceSpec("Resource" + c + "Service", PACKAGE + ".service", methodSpecs);
+    }
+}
@@ -0,0 +1,73 @@
+package ai.migrator.generation;
+
+import ai.migrator.bench.SyntheticSpecs;
+import ai.migrator.config.MigrationProperties;
+import ai.migrator.model.MigrationSpec;
+import ai.migrator.transform.NamingService;
+import ai.migrator.transform.SpecFingerprints;
+import ai.migrator.transform.TypeMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generating a module of {@code controllers} controllers (8 endpoints each, two DTOs of 12 fields per controller)
+ * into a {@link VirtualOutputTree} on {@code threads} render threads: from scratch, and against the sources of an
+ * identical previous run, where every model, service and router is retained instead of rendered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    @Param({"4", "32", "128"})
+    public int controllers;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private FastApiGenerator generator;
+    private MigrationSpec spec;
+    private Map<String, String> previousSources;
+
+    @Setup
+    public void setUp() {
+        MigrationProperties properties = new MigrationProperties();
+        properties.setGeneratorThreads(threads);
+        generator = new FastApiGenerator(new TypeMapper(properties), new NamingService(),
+            new FastApiTemplates(properties), new SpecFingerprints(), properties);
+        spec = SyntheticSpecs.module("shop", controllers, 8, controllers * 2, 12);
+        previousSources = render(new VirtualOutputTree()).sources();
+    }
+
+    @Benchmark
+    public VirtualOutputTree full() {
+        return render(new VirtualOutputTree());
+    }
+
+    @Benchmark
+    public VirtualOutputTree unchanged() {
+        return render(new VirtualOutputTree(previousSources));
+    }
+
+    private VirtualOutputTree render(VirtualOutputTree tree) {
+        generator.generateModule(tree, spec, false);
+        generator.generateRoot(tree, List.of(spec), false);
+        return tree;
+    }
+}
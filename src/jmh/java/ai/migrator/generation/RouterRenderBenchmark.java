@@ -0,0 +1,218 @@
+package ai.migrator.generation;
+
+import ai.migrator.config.MigrationProperties;
+import ai.migrator.model.EndpointSpec;
+import ai.migrator.model.ParameterSpec;
+import ai.migrator.model.TypeRef;
+import ai.migrator.transform.NamingService;
+import ai.migrator.transform.SpecFingerprints;
+import ai.migrator.transform.TypeMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering one router module of {@code endpoints} routes, comparing the string concatenation the generator used
+ * to do with the compiled {@code router.py.tmpl} it renders now. Both produce the UTF-8 bytes the output tree
+ * keeps: the concatenation as a string encoded afterwards, as the generator used to put it, the template directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterRenderBenchmark {
+
+    @Param({"5", "50"})
+    public int endpoints;
+
+    private FastApiGenerator generator;
+    private TypeMapper typeMapper;
+    private NamingService naming;
+    private List<EndpointSpec> specs;
+    private Set<String> dtoNames;
+
+    @Setup
+    public void setUp() {
+        MigrationProperties properties = new MigrationProperties();
+        typeMapper = new TypeMapper(properties);
+        naming = new NamingService();
+        generator = new FastApiGenerator(typeMapper, naming, new FastApiTemplates(properties),
+            new SpecFingerprints(), properties);
+        dtoNames = Set.of("OrderDto", "OrderLineDto");
+        specs = new ArrayList<>();
+        for (int i = 0; i < endpoints; i++) {
+            specs.add(EndpointSpec.builder()
+                .controllerClass("com.example.OrderController")
+                .controllerPath("/orders")
+                .methodName("handleOrder" + i)
+                .methodPath("/{orderId}/lines" + i)
+                .httpMethod(i % 2 == 0 ? "GET" : "POST")
+                .statusCode(200)
+                .requestBody(i % 2 == 0 ? null : TypeRef.simple("OrderLineDto"))
+                .responseBody(i % 3 == 0 ? TypeRef.collection("List", "OrderDto") : TypeRef.simple("OrderDto"))
+                .pathParams(List.of(new ParameterSpec("orderId", TypeRef.simple("Long"), true, "path", false)))
+                .queryParams(List.of(
+                    new ParameterSpec("page-size", TypeRef.simple("Integer"), false, "query", true),
+                    new ParameterSpec("sort", TypeRef.simple("String"), false, "query", true)))
+                .headerParams(List.of(new ParameterSpec("X-Trace-Id", TypeRef.simple("String"), true, "header", false)))
+                .controllerServices(List.of("com.example.OrderService"))
+                .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] template() {
+        return generator.renderRouter(specs, dtoNames, null, false);
+    }
+
+    @Benchmark
+    public byte[] concatenation() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("from __future__ import annotations\n\n");
+        sb.append("from fastapi import APIRouter, Body, Depends, Header, HTTPException, Path, Query\n");
+        sb.append("from typing import Optional");
+        for (String name : typingNames()) {
+            if (!name.equals("Optional")) {
+                sb.append(", ").append(name);
+            }
+        }
+        sb.append("\n");
+
+        Set<String> modelImports = new LinkedHashSet<>();
+        Set<String> dependencyImports = new LinkedHashSet<>();
+        Set<String> serviceImports = new LinkedHashSet<>();
+        for (EndpointSpec endpoint : specs) {
+            String reqModel = modelName(endpoint.requestBody());
+            if (reqModel != null) {
+                modelImports.add(reqModel);
+            }
+            String respModel = modelName(endpoint.responseBody());
+            if (respModel != null) {
+                modelImports.add(respModel);
+            }
+            for (String service : endpoint.controllerServices()) {
+                String simple = simpleName(service);
+                serviceImports.add("from app.services." + naming.snake(simple) + " import " + simple);
+                dependencyImports.add("from app.core.dependencies import get_" + naming.snake(simple));
+            }
+        }
+        if (!modelImports.isEmpty()) {
+            sb.append("from app.models import ").append(String.join(", ", modelImports)).append("\n");
+        }
+        for (String dep : dependencyImports) {
+            sb.append(dep).append("\n");
+        }
+        for (String imp : serviceImports) {
+            sb.append(imp).append("\n");
+        }
+        sb.append("\n");
+        sb.append("router = APIRouter(prefix=\"").append(specs.getFirst().controllerPath()).append("\")\n\n");
+
+        for (EndpointSpec endpoint : specs) {
+            String decorator = "@router." + endpoint.httpMethod().toLowerCase(Locale.ROOT) + "(\"" + endpoint.methodPath() + "\"";
+            String responseModel = modelName(endpoint.responseBody());
+            if (responseModel != null) {
+                decorator += ", response_model=" + responseModel;
+            } else if (endpoint.responseBody() != null) {
+                decorator += ", response_model=" + typeMapper.mapJavaType(endpoint.responseBody());
+            }
+            if (endpoint.statusCode() != null) {
+                decorator += ", status_code=" + endpoint.statusCode();
+            }
+            decorator += ")\n";
+            sb.append(decorator);
+
+            List<String> params = new ArrayList<>();
+            for (ParameterSpec param : endpoint.pathParams()) {
+                params.add(naming.pythonIdentifier(param.name()) + ": " + typeMapper.mapJavaType(param.type()) + " = Path(...)");
+            }
+            for (ParameterSpec param : endpoint.queryParams()) {
+                params.add(requestParam(param, "Query"));
+            }
+            for (ParameterSpec param : endpoint.headerParams()) {
+                params.add(requestParam(param, "Header"));
+            }
+            String reqModel = modelName(endpoint.requestBody());
+            if (reqModel != null) {
+                params.add("payload: " + reqModel + " = Body(...)");
+            } else if (endpoint.requestBody() != null) {
+                params.add("payload: " + typeMapper.mapJavaType(endpoint.requestBody()) + " = Body(...)");
+            }
+            for (String service : endpoint.controllerServices()) {
+                String simple = simpleName(service);
+                String var = naming.snake(simple);
+                params.add(var + ": " + simple + " = Depends(get_" + var + ")");
+            }
+
+            String signature = String.join(", ", params);
+            sb.append("def ").append(naming.snake(endpoint.methodName())).append("(").append(signature).append("):\n");
+            sb.append("    raise HTTPException(status_code=501, detail=\"Not implemented\")\n\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Set<String> typingNames() {
+        Set<String> names = new TreeSet<>();
+        for (EndpointSpec endpoint : specs) {
+            if (endpoint.requestBody() != null) {
+                names.addAll(typeMapper.typingNames(typeMapper.mapJavaType(endpoint.requestBody())));
+            }
+            if (endpoint.responseBody() != null) {
+                names.addAll(typeMapper.typingNames(typeMapper.mapJavaType(endpoint.responseBody())));
+            }
+            for (ParameterSpec param : endpoint.queryParams()) {
+                names.addAll(typeMapper.typingNames(typeMapper.mapJavaType(param.type())));
+            }
+            for (ParameterSpec param : endpoint.pathParams()) {
+                names.addAll(typeMapper.typingNames(typeMapper.mapJavaType(param.type())));
+            }
+            for (ParameterSpec param : endpoint.headerParams()) {
+                names.addAll(typeMapper.typingNames(typeMapper.mapJavaType(param.type())));
+            }
+        }
+        return names;
+    }
+
+    private String requestParam(ParameterSpec param, String source) {
+        String type = typeMapper.mapJavaType(param.type());
+        String pyName = naming.pythonIdentifier(param.name());
+        String defaultExpr = param.requiredEffective() ? "..." : "None";
+        String annotatedType = param.requiredEffective() || type.startsWith("Optional[") ? type : ("Optional[" + type + "]");
+        if (!pyName.equals(param.name())) {
+            return pyName + ": " + annotatedType + " = " + source + "(" + defaultExpr + ", alias=\"" + param.name() + "\")";
+        }
+        return pyName + ": " + annotatedType + " = " + source + "(" + defaultExpr + ")";
+    }
+
+    private String modelName(TypeRef typeRef) {
+        if (typeRef == null) {
+            return null;
+        }
+        String name = simpleName(typeRef.name());
+        return dtoNames.contains(name) ? name : null;
+    }
+
+    private static String simpleName(String typeName) {
+        int idx = typeName.lastIndexOf('.');
+        return idx == -1 ? typeName : typeName.substring(idx + 1);
+    }
+}
@@ -0,0 +1,77 @@
+package ai.migrator.transform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * snake_case conversion of the class, method and field names a generated module asks for, comparing the
+ * per-call regex version the generator used to have with {@link NamingService} uncached and cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NamingBenchmark {
+
+    private static final String[] NAMES = {
+        "UserController", "OrderService", "CustomerRepository", "UserDTO", "getHTTPResponse", "findAllByCustomerId",
+        "InvoiceLineItemDto", "createOrder", "XMLHttpRequestHandler", "PaymentGatewayV2Client", "id", "createdAt",
+        "updateUserProfile", "ShippingAddressDto", "deleteById", "OAuth2TokenService"
+    };
+
+    private NamingService naming;
+
+    @Setup
+    public void setUp() {
+        naming = new NamingService();
+    }
+
+    @Benchmark
+    public void regexPerCall(Blackhole bh) {
+        for (String name : NAMES) {
+            bh.consume(regexSnake(name));
+        }
+    }
+
+    @Benchmark
+    public void uncached(Blackhole bh) {
+        for (String name : NAMES) {
+            bh.consume(NamingService.toSnake(name));
+        }
+    }
+
+    @Benchmark
+    public void cached(Blackhole bh) {
+        for (String name : NAMES) {
+            bh.consume(naming.snake(name));
+        }
+    }
+
+    private static String regexSnake(String name) {
+        StringBuilder sb = new StringBuilder();
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (Character.isUpperCase(c)) {
+                if (i > 0) sb.append('_');
+                sb.append(Character.toLowerCase(c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString().replaceAll("__", "_");
+    }
+}
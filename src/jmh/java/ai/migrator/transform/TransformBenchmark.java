@@ -0,0 +1,85 @@
+package ai.migrator.transform;
+
+import ai.migrator.bench.SyntheticSpecs;
+import ai.migrator.config.MigrationProperties;
+import ai.migrator.model.DtoSpec;
+import ai.migrator.model.FastApiSpec;
+import ai.migrator.model.MigrationSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The transform steps that run without the model, on a module of {@code controllers} controllers (8 endpoints
+ * each, two DTOs of 12 fields per controller): chunking, DTO selection for one chunk, hybrid classification, the
+ * deterministic transform, and merging the deterministic results of all chunks back into one spec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformBenchmark {
+
+    private static final int CHUNK_SIZE = 12;
+
+    @Param({"4", "32", "128"})
+    public int controllers;
+
+    private MigrationSpec spec;
+    private TransformClassifier classifier;
+    private DeterministicTransformService deterministic;
+    private List<FastApiSpec> chunkResults;
+
+    @Setup
+    public void setUp() {
+        MigrationProperties properties = new MigrationProperties();
+        TypeMapper typeMapper = new TypeMapper(properties);
+        classifier = new TransformClassifier(typeMapper);
+        deterministic = new DeterministicTransformService(typeMapper, new NamingService());
+        spec = SyntheticSpecs.module("shop", controllers, 8, controllers * 2, 12);
+        chunkResults = new ArrayList<>();
+        for (MigrationSpec chunk : MigrationChunker.chunk(spec, CHUNK_SIZE)) {
+            chunkResults.add(deterministic.transform(chunk));
+        }
+    }
+
+    @Benchmark
+    public List<MigrationSpec> chunk() {
+        return MigrationChunker.chunk(spec, CHUNK_SIZE);
+    }
+
+    @Benchmark
+    public List<DtoSpec> selectDtos() {
+        return MigrationChunker.selectDtos(spec.endpoints().subList(0, Math.min(CHUNK_SIZE, spec.endpoints().size())),
+            spec.dtos());
+    }
+
+    @Benchmark
+    public TransformClassifier.Classification classify() {
+        return classifier.classify(spec);
+    }
+
+    @Benchmark
+    public FastApiSpec deterministicTransform() {
+        return deterministic.transform(spec);
+    }
+
+    @Benchmark
+    public FastApiSpec merge() {
+        return FastApiSpecMerger.merge(chunkResults);
+    }
+}
@@ -0,0 +1,76 @@
+package ai.migrator.util;
+
+import ai.migrator.bench.SyntheticSpecs;
+import ai.migrator.model.MigrationSpec;
+import ai.migrator.transform.SpecFingerprints;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The LLM cache key of a chunk of {@code controllers} controllers: the pretty JSON string hashed and hex encoded
+ * with {@code String.format}, as the key used to be computed, and the structural fingerprint the key is now,
+ * computed from scratch and from memoized record fingerprints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashingBenchmark {
+
+    @Param({"1", "8"})
+    public int controllers;
+
+    private final ObjectMapper legacyMapper = new ObjectMapper()
+        .registerModule(new Jdk8Module())
+        .registerModule(new JavaTimeModule());
+
+    private MigrationSpec chunk;
+    private SpecFingerprints fingerprints;
+
+    @Setup
+    public void setUp() {
+        chunk = SyntheticSpecs.module("orders", controllers, 8, controllers * 2, 12);
+        fingerprints = new SpecFingerprints();
+        fingerprints.module(chunk);
+    }
+
+    @Benchmark
+    public String prettyString() throws Exception {
+        byte[] bytes = legacyMapper.writerWithDefaultPrettyPrinter().writeValueAsString(chunk)
+            .getBytes(StandardCharsets.UTF_8);
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hash) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String fingerprint() {
+        return new SpecFingerprints().module(chunk);
+    }
+
+    @Benchmark
+    public String fingerprintMemoized() {
+        return fingerprints.module(chunk);
+    }
+}
@@ -0,0 +1,92 @@
+package ai.migrator.util;
+
+import ai.migrator.bench.SyntheticSpecs;
+import ai.migrator.model.MigrationSpec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading a module analysis of {@code megabytes} MB of pretty JSON, comparing the string round trip
+ * {@link JsonUtils} used to do (a new pretty writer per call, the whole document as a {@code String}) with the
+ * streaming readers and writers it uses now, with and without Blackbird.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class JsonBenchmark {
+
+    @Param({"50"})
+    public int megabytes;
+
+    @Param({"false", "true"})
+    public boolean accelerator;
+
+    private final ObjectMapper legacyMapper = new ObjectMapper()
+        .registerModule(new Jdk8Module())
+        .registerModule(new JavaTimeModule());
+
+    private MigrationSpec spec;
+    private Path dir;
+    private Path source;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JsonUtils.configure(accelerator);
+        spec = SyntheticSpecs.moduleOfSize("orders", megabytes);
+        dir = Files.createTempDirectory("json-bench");
+        source = dir.resolve("analysis.json");
+        target = dir.resolve("written.json");
+        JsonUtils.writeJson(source, spec);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(dir);
+        JsonUtils.configure(false);
+    }
+
+    @Benchmark
+    public void writeString() throws IOException {
+        Files.writeString(target, legacyMapper.writerWithDefaultPrettyPrinter().writeValueAsString(spec));
+    }
+
+    @Benchmark
+    public void writeStream() throws IOException {
+        JsonUtils.writeJson(target, spec);
+    }
+
+    @Benchmark
+    public MigrationSpec readString() throws IOException {
+        return legacyMapper.readValue(Files.readString(source), MigrationSpec.class);
+    }
+
+    @Benchmark
+    public MigrationSpec readStream() throws IOException {
+        return JsonUtils.readJson(source, MigrationSpec.class);
+    }
+}
@@ -0,0 +1,73 @@
+package ai.migrator.util;
+
+import ai.migrator.bench.SyntheticSpecs;
+import ai.migrator.model.MigrationSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and loading a module analysis of about {@code megabytes} MB of pretty JSON in each
+ * {@link DataFormat}. The encoded sizes are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class MetadataFormatBenchmark {
+
+    @Param({"50"})
+    public int megabytes;
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public DataFormat format;
+
+    private MigrationSpec spec;
+    private Path dir;
+    private Path source;
+    private Path target;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        spec = SyntheticSpecs.moduleOfSize("orders", megabytes);
+        dir = Files.createTempDirectory("format-bench");
+        source = dir.resolve(format.fileName("analysis"));
+        target = dir.resolve(format.fileName("written"));
+        JsonUtils.write(source, spec, format);
+        System.out.printf("%n%s: %,d bytes%n", format, Files.size(source));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        JsonUtils.write(target, spec, format);
+    }
+
+    @Benchmark
+    public MigrationSpec read() throws IOException {
+        return JsonUtils.read(source, MigrationSpec.class, format);
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 @EnableConfigurationProperties(MigrationProperties.class)
 public class SpringAiMigratorApplication {
     public static void main(String[] args) {
-        SpringApplication.run(SpringAiMigratorApplication.class, args);
+        // close the context once the runner is done so beans holding threads (such as the stub server) shut down
+        SpringApplication.run(SpringAiMigratorApplication.class, args).close();
     }
 }
@@ -0,0 +1,23 @@
+package ai.migrator.analysis;
+
+import java.util.Set;
+
+final class SpringAnnotations {
+
+    static final Set<String> STANDARD_ENDPOINT_ANNOTATIONS = Set.of(
+        "GetMapping", "PostMapping", "PutMapping", "DeleteMapping", "PatchMapping", "RequestMapping",
+        "ResponseStatus", "ResponseBody", "Override", "Deprecated", "SuppressWarnings",
+        "RequestBody", "RequestParam", "PathVariable", "RequestHeader",
+        "Valid", "Validated", "NotNull", "NotBlank", "NotEmpty", "Size", "Min", "Max", "Positive", "PositiveOrZero",
+        "Operation", "ApiOperation", "ApiResponse", "ApiResponses", "Parameter", "ApiParam", "Tag"
+    );
+
+    private SpringAnnotations() {
+    }
+
+    static boolean isStandard(String annotationName) {
+        int idx = annotationName.lastIndexOf('.');
+        String simple = idx == -1 ? annotationName : annotationName.substring(idx + 1);
+        return STANDARD_ENDPOINT_ANNOTATIONS.contains(simple);
+    }
+}
@@ -70,6 +70,7 @@ public class SpringBytecodeAnalyzer {
                 .pathParams(extractParams(method, "org.springframework.web.bind.annotation.PathVariable", "path"))
                 .headerParams(extractParams(method, "org.springframework.web.bind.annotation.RequestHeader", "header"))
                 .controllerServices(services)
+                .customAnnotations(extractCustomAnnotations(method))
                 .build();
 
             result.addEndpoint(endpoint);
@@ -188,6 +189,23 @@ public class SpringBytecodeAnalyzer {
         return params;
     }
 
+    private List<String> extractCustomAnnotations(MethodInfo method) {
+        Set<String> custom = new LinkedHashSet<>();
+        for (AnnotationInfo ann : method.getAnnotationInfo()) {
+            if (!SpringAnnotations.isStandard(ann.getName())) {
+                custom.add(ann.getName());
+            }
+        }
+        for (MethodParameterInfo param : method.getParameterInfo()) {
+            for (AnnotationInfo ann : param.getAnnotationInfo()) {
+                if (!SpringAnnotations.isStandard(ann.getName())) {
+                    custom.add(ann.getName());
+                }
+            }
+        }
+        return new ArrayList<>(custom);
+    }
+
     private List<String> extractControllerServices(ClassInfo controller) {
         List<String> services = new ArrayList<>();
         for (FieldInfo field : controller.getFieldInfo()) {
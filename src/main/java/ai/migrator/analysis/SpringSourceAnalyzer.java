@@ -60,7 +60,7 @@ public class SpringSourceAnalyzer {
         return result;
     }
 
-    private void parseFile(Path path, AnalysisResult result) {
+    void parseFile(Path path, AnalysisResult result) {
         try {
             Optional<CompilationUnit> maybeCu = parser.parse(path).getResult();
             if (maybeCu.isEmpty()) {
@@ -163,6 +163,7 @@ public class SpringSourceAnalyzer {
                 .pathParams(extractParams(method, ParamSource.PATH))
                 .headerParams(extractParams(method, ParamSource.HEADER))
                 .controllerServices(services)
+                .customAnnotations(extractCustomAnnotations(method))
                 .build();
 
             result.addEndpoint(endpoint);
@@ -570,6 +571,25 @@ public class SpringSourceAnalyzer {
         return null;
     }
 
+    private List<String> extractCustomAnnotations(MethodDeclaration method) {
+        Set<String> custom = new LinkedHashSet<>();
+        for (AnnotationExpr ann : method.getAnnotations()) {
+            String name = ann.getName().getIdentifier();
+            if (!SpringAnnotations.isStandard(name)) {
+                custom.add(name);
+            }
+        }
+        for (com.github.javaparser.ast.body.Parameter param : method.getParameters()) {
+            for (AnnotationExpr ann : param.getAnnotations()) {
+                String name = ann.getName().getIdentifier();
+                if (!SpringAnnotations.isStandard(name)) {
+                    custom.add(name);
+                }
+            }
+        }
+        return new ArrayList<>(custom);
+    }
+
     private List<String> extractControllerServices(ClassOrInterfaceDeclaration decl) {
         List<String> services = new ArrayList<>();
         for (FieldDeclaration field : decl.getFields()) {
@@ -1,8 +1,22 @@
 package ai.migrator.config;
 
+import ai.migrator.stub.StubModelServer;
+import ai.migrator.transform.ModelCircuitBreaker;
+import ai.migrator.transform.ModelPool;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.OpenAiApi;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class AiConfig {
@@ -10,4 +24,64 @@ public class AiConfig {
     public ChatClient chatClient(ChatClient.Builder builder) {
         return builder.build();
     }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "migrator.stub", name = "enabled", havingValue = "true")
+    public StubModelServer stubModelServer(MigrationProperties properties,
+                                           @Value("${spring.ai.openai.base-url:}") String upstream,
+                                           @Value("${spring.ai.openai.api-key:}") String upstreamApiKey) throws IOException {
+        StubModelServer server = new StubModelServer(properties.getStub(), upstream, upstreamApiKey);
+        server.start();
+        return server;
+    }
+
+    @Bean
+    public ModelPool modelPool(ChatClient chatClient,
+                               MigrationProperties properties,
+                               ObjectProvider<StubModelServer> stubModelServer,
+                               @Value("${spring.ai.openai.base-url:}") String defaultBaseUrl,
+                               @Value("${spring.ai.openai.api-key:}") String defaultApiKey,
+                               @Value("${spring.ai.openai.chat.options.model:}") String defaultModel,
+                               @Value("${spring.ai.openai.chat.options.temperature:0}") double temperature) {
+        List<MigrationProperties.ModelEndpoint> endpoints = properties.getModelEndpoints();
+        List<ModelPool.Member> members = new ArrayList<>();
+        // with the stub enabled every endpoint is served by the stub; weights and concurrency still apply
+        StubModelServer stub = stubModelServer.getIfAvailable();
+        if (endpoints == null || endpoints.isEmpty()) {
+            if (stub == null) {
+                members.add(new ModelPool.Member(defaultBaseUrl, chatClient,
+                    new ModelCircuitBreaker(defaultBaseUrl, properties), 1, 1));
+            } else {
+                members.add(new ModelPool.Member(stub.baseUrl(),
+                    chatClient(stub.baseUrl(), defaultApiKey, defaultModel, temperature),
+                    new ModelCircuitBreaker(stub.baseUrl(), properties), 1, 1));
+            }
+            return new ModelPool(members);
+        }
+
+        for (MigrationProperties.ModelEndpoint endpoint : endpoints) {
+            String baseUrl = endpoint.getBaseUrl() != null ? endpoint.getBaseUrl() : defaultBaseUrl;
+            String apiKey = endpoint.getApiKey() != null ? endpoint.getApiKey() : defaultApiKey;
+            String model = endpoint.getModel() != null ? endpoint.getModel() : defaultModel;
+            String name = stub == null ? baseUrl : stub.baseUrl() + " (" + baseUrl + ")";
+
+            members.add(new ModelPool.Member(name,
+                chatClient(stub == null ? baseUrl : stub.baseUrl(), apiKey, model, temperature),
+                new ModelCircuitBreaker(name, properties), endpoint.getWeight(), endpoint.getMaxConcurrency()));
+        }
+        return new ModelPool(members);
+    }
+
+    private ChatClient chatClient(String baseUrl, String apiKey, String model, double temperature) {
+        OpenAiApi api = OpenAiApi.builder()
+            .baseUrl(baseUrl)
+            .apiKey(apiKey)
+            .build();
+        OpenAiChatModel chatModel = OpenAiChatModel.builder()
+            .openAiApi(api)
+            .defaultOptions(OpenAiChatOptions.builder().model(model).temperature(temperature).build())
+            .retryTemplate(RetryTemplate.builder().maxAttempts(1).build())
+            .build();
+        return ChatClient.create(chatModel);
+    }
 }
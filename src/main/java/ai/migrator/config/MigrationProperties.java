@@ -1,8 +1,14 @@
 package ai.migrator.config;
 
+import ai.migrator.util.DataFormat;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @ConfigurationProperties(prefix = "migrator")
 public class MigrationProperties {
@@ -11,14 +17,207 @@ public class MigrationProperties {
         AUTO, SOURCE, BYTECODE
     }
 
+    public static class ModelEndpoint {
+        private String baseUrl;
+        private String model;
+        private String apiKey;
+        private int weight = 1;
+        private int maxConcurrency = 1;
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public void setModel(String model) {
+            this.model = model;
+        }
+
+        public String getApiKey() {
+            return apiKey;
+        }
+
+        public void setApiKey(String apiKey) {
+            this.apiKey = apiKey;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+    }
+
+    public enum ResponseFormat {
+        TEXT, JSON_OBJECT, JSON_SCHEMA
+    }
+
+    public enum Sink {
+        FILESYSTEM, ZIP, TAR, PATCH
+    }
+
+    public enum StubMode {
+        REPLAY, RECORD
+    }
+
+    public static class Stub {
+        private boolean enabled = false;
+        private int port = 0;
+        private StubMode mode = StubMode.REPLAY;
+        private Path fixtures = Path.of("llm-fixtures");
+        private String upstream;
+        private Duration latency = Duration.ZERO;
+        private int tokensPerSecond = 0;
+        private int contextLimitTokens = 0;
+        private double contextErrorRate = 0;
+        private double malformedRate = 0;
+        private long seed = 42;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public StubMode getMode() {
+            return mode;
+        }
+
+        public void setMode(StubMode mode) {
+            this.mode = mode;
+        }
+
+        public Path getFixtures() {
+            return fixtures;
+        }
+
+        public void setFixtures(Path fixtures) {
+            this.fixtures = fixtures;
+        }
+
+        public String getUpstream() {
+            return upstream;
+        }
+
+        public void setUpstream(String upstream) {
+            this.upstream = upstream;
+        }
+
+        public Duration getLatency() {
+            return latency;
+        }
+
+        public void setLatency(Duration latency) {
+            this.latency = latency;
+        }
+
+        public int getTokensPerSecond() {
+            return tokensPerSecond;
+        }
+
+        public void setTokensPerSecond(int tokensPerSecond) {
+            this.tokensPerSecond = tokensPerSecond;
+        }
+
+        public int getContextLimitTokens() {
+            return contextLimitTokens;
+        }
+
+        public void setContextLimitTokens(int contextLimitTokens) {
+            this.contextLimitTokens = contextLimitTokens;
+        }
+
+        public double getContextErrorRate() {
+            return contextErrorRate;
+        }
+
+        public void setContextErrorRate(double contextErrorRate) {
+            this.contextErrorRate = contextErrorRate;
+        }
+
+        public double getMalformedRate() {
+            return malformedRate;
+        }
+
+        public void setMalformedRate(double malformedRate) {
+            this.malformedRate = malformedRate;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public void setSeed(long seed) {
+            this.seed = seed;
+        }
+    }
+
     private Path input;
     private Path output;
     private Mode mode = Mode.AUTO;
     private int maxChunkSize = 10;
     private boolean includeTests = false;
     private boolean useAi = true;
+    private boolean hybrid = false;
     private Path cacheDir = Path.of(".migrator-cache");
     private int moduleSearchDepth = 6;
+    private boolean compactPrompts = true;
+    private boolean prefixLayout = true;
+    private int prefixContextTokens = 4000;
+    private boolean streamResponses = false;
+    private ResponseFormat responseFormat = ResponseFormat.TEXT;
+    private boolean batchSmallModules = false;
+    private int batchTokenBudget = 6000;
+    private Duration timeBudget = Duration.ZERO;
+    private boolean progressive = false;
+    private boolean plan = false;
+    private int generatorThreads = 0;
+    private Sink sink = Sink.FILESYSTEM;
+    private String archive = "-";
+    private Path patchDir = Path.of("migrator-patch");
+    private Path templateDir;
+    private boolean jsonAccelerator = false;
+    private DataFormat metadataFormat = DataFormat.JSON;
+    private Path dump;
+    private double promptTokenPrice = 0;
+    private double completionTokenPrice = 0;
+    private int repairAttempts = 2;
+    private int modelRetries = 2;
+    private Duration modelRetryBackoff = Duration.ofSeconds(1);
+    private int breakerFailureThreshold = 3;
+    private Duration breakerCooldown = Duration.ofSeconds(30);
+    private Duration breakerSlowCall = Duration.ofMinutes(3);
+    private Map<String, String> typeMappings = new LinkedHashMap<>();
+    private Map<String, String> genericTypeMappings = new LinkedHashMap<>();
+    private List<ModelEndpoint> modelEndpoints = new ArrayList<>();
+    private Stub stub = new Stub();
 
     public Path getInput() {
         return input;
@@ -68,6 +267,14 @@ public class MigrationProperties {
         this.useAi = useAi;
     }
 
+    public boolean isHybrid() {
+        return hybrid;
+    }
+
+    public void setHybrid(boolean hybrid) {
+        this.hybrid = hybrid;
+    }
+
     public Path getCacheDir() {
         return cacheDir;
     }
@@ -84,4 +291,244 @@ public class MigrationProperties {
     public void setModuleSearchDepth(int moduleSearchDepth) {
         this.moduleSearchDepth = moduleSearchDepth;
     }
+
+    public int getRepairAttempts() {
+        return repairAttempts;
+    }
+
+    public void setRepairAttempts(int repairAttempts) {
+        this.repairAttempts = repairAttempts;
+    }
+
+    public int getModelRetries() {
+        return modelRetries;
+    }
+
+    public void setModelRetries(int modelRetries) {
+        this.modelRetries = modelRetries;
+    }
+
+    public Duration getModelRetryBackoff() {
+        return modelRetryBackoff;
+    }
+
+    public void setModelRetryBackoff(Duration modelRetryBackoff) {
+        this.modelRetryBackoff = modelRetryBackoff;
+    }
+
+    public int getBreakerFailureThreshold() {
+        return breakerFailureThreshold;
+    }
+
+    public void setBreakerFailureThreshold(int breakerFailureThreshold) {
+        this.breakerFailureThreshold = breakerFailureThreshold;
+    }
+
+    public Duration getBreakerCooldown() {
+        return breakerCooldown;
+    }
+
+    public void setBreakerCooldown(Duration breakerCooldown) {
+        this.breakerCooldown = breakerCooldown;
+    }
+
+    public Duration getBreakerSlowCall() {
+        return breakerSlowCall;
+    }
+
+    public void setBreakerSlowCall(Duration breakerSlowCall) {
+        this.breakerSlowCall = breakerSlowCall;
+    }
+
+    public Map<String, String> getTypeMappings() {
+        return typeMappings;
+    }
+
+    public void setTypeMappings(Map<String, String> typeMappings) {
+        this.typeMappings = typeMappings;
+    }
+
+    public Map<String, String> getGenericTypeMappings() {
+        return genericTypeMappings;
+    }
+
+    public void setGenericTypeMappings(Map<String, String> genericTypeMappings) {
+        this.genericTypeMappings = genericTypeMappings;
+    }
+
+    public List<ModelEndpoint> getModelEndpoints() {
+        return modelEndpoints;
+    }
+
+    public void setModelEndpoints(List<ModelEndpoint> modelEndpoints) {
+        this.modelEndpoints = modelEndpoints;
+    }
+
+    public Stub getStub() {
+        return stub;
+    }
+
+    public void setStub(Stub stub) {
+        this.stub = stub;
+    }
+
+    public boolean isPrefixLayout() {
+        return prefixLayout;
+    }
+
+    public void setPrefixLayout(boolean prefixLayout) {
+        this.prefixLayout = prefixLayout;
+    }
+
+    public int getPrefixContextTokens() {
+        return prefixContextTokens;
+    }
+
+    public void setPrefixContextTokens(int prefixContextTokens) {
+        this.prefixContextTokens = prefixContextTokens;
+    }
+
+    public boolean isStreamResponses() {
+        return streamResponses;
+    }
+
+    public void setStreamResponses(boolean streamResponses) {
+        this.streamResponses = streamResponses;
+    }
+
+    public ResponseFormat getResponseFormat() {
+        return responseFormat;
+    }
+
+    public void setResponseFormat(ResponseFormat responseFormat) {
+        this.responseFormat = responseFormat;
+    }
+
+    public boolean isBatchSmallModules() {
+        return batchSmallModules;
+    }
+
+    public void setBatchSmallModules(boolean batchSmallModules) {
+        this.batchSmallModules = batchSmallModules;
+    }
+
+    public int getBatchTokenBudget() {
+        return batchTokenBudget;
+    }
+
+    public void setBatchTokenBudget(int batchTokenBudget) {
+        this.batchTokenBudget = batchTokenBudget;
+    }
+
+    public Duration getTimeBudget() {
+        return timeBudget;
+    }
+
+    public void setTimeBudget(Duration timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
+    public boolean isProgressive() {
+        return progressive;
+    }
+
+    public void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
+    public boolean isPlan() {
+        return plan;
+    }
+
+    public void setPlan(boolean plan) {
+        this.plan = plan;
+    }
+
+    public int getGeneratorThreads() {
+        return generatorThreads;
+    }
+
+    public void setGeneratorThreads(int generatorThreads) {
+        this.generatorThreads = generatorThreads;
+    }
+
+    public Sink getSink() {
+        return sink;
+    }
+
+    public void setSink(Sink sink) {
+        this.sink = sink;
+    }
+
+    public String getArchive() {
+        return archive;
+    }
+
+    public void setArchive(String archive) {
+        this.archive = archive;
+    }
+
+    public Path getPatchDir() {
+        return patchDir;
+    }
+
+    public void setPatchDir(Path patchDir) {
+        this.patchDir = patchDir;
+    }
+
+    public Path getTemplateDir() {
+        return templateDir;
+    }
+
+    public void setTemplateDir(Path templateDir) {
+        this.templateDir = templateDir;
+    }
+
+    public boolean isJsonAccelerator() {
+        return jsonAccelerator;
+    }
+
+    public void setJsonAccelerator(boolean jsonAccelerator) {
+        this.jsonAccelerator = jsonAccelerator;
+    }
+
+    public DataFormat getMetadataFormat() {
+        return metadataFormat;
+    }
+
+    public void setMetadataFormat(DataFormat metadataFormat) {
+        this.metadataFormat = metadataFormat;
+    }
+
+    public Path getDump() {
+        return dump;
+    }
+
+    public void setDump(Path dump) {
+        this.dump = dump;
+    }
+
+    public double getPromptTokenPrice() {
+        return promptTokenPrice;
+    }
+
+    public void setPromptTokenPrice(double promptTokenPrice) {
+        this.promptTokenPrice = promptTokenPrice;
+    }
+
+    public double getCompletionTokenPrice() {
+        return completionTokenPrice;
+    }
+
+    public void setCompletionTokenPrice(double completionTokenPrice) {
+        this.completionTokenPrice = completionTokenPrice;
+    }
+
+    public boolean isCompactPrompts() {
+        return compactPrompts;
+    }
+
+    public void setCompactPrompts(boolean compactPrompts) {
+        this.compactPrompts = compactPrompts;
+    }
 }
@@ -0,0 +1,36 @@
+package ai.migrator.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.io.PrintStream;
+
+/**
+ * When stdout carries data, an archive of the project or a file dumped as JSON, moves everything else printed to
+ * {@code System.out} (the banner and console logging) to stderr before any of it is printed, so stdout carries
+ * only that data. The original stream stays available through {@link #stdout()}.
+ */
+public class StdoutRedirect implements EnvironmentPostProcessor {
+
+    private static final PrintStream STDOUT = System.out;
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String sink = environment.getProperty("migrator.sink", "FILESYSTEM");
+        String archive = environment.getProperty("migrator.archive", "-");
+        boolean dump = environment.getProperty("migrator.dump") != null;
+        if (dump || isArchive(sink) && "-".equals(archive)) {
+            System.setOut(System.err);
+        }
+    }
+
+    public static PrintStream stdout() {
+        return STDOUT;
+    }
+
+    private static boolean isArchive(String sink) {
+        return MigrationProperties.Sink.ZIP.name().equalsIgnoreCase(sink)
+            || MigrationProperties.Sink.TAR.name().equalsIgnoreCase(sink);
+    }
+}
@@ -0,0 +1,167 @@
+package ai.migrator.generation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams the tree as a zip or tar archive, for example to stdout for piping into an artifact store without
+ * staging the project on disk. Entries are sorted by path and carry a fixed timestamp, so the same project always
+ * produces the same archive bytes.
+ */
+public class ArchiveSink implements OutputSink {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveSink.class);
+    private static final LocalDateTime ZIP_TIME = LocalDateTime.of(1980, 1, 1, 0, 0);
+    private static final int BLOCK = 512;
+
+    public enum Format {
+        ZIP, TAR
+    }
+
+    private final Format format;
+    private final OutputStream out;
+    private final String target;
+
+    /**
+     * @param out    the stream to write to; it is flushed but not closed
+     * @param target a description of the destination for the log
+     */
+    public ArchiveSink(Format format, OutputStream out, String target) {
+        this.format = format;
+        this.out = out;
+        this.target = target;
+    }
+
+    @Override
+    public Stats flush(VirtualOutputTree tree) throws IOException {
+        if (!tree.retained().isEmpty()) {
+            throw new IllegalStateException("An archive needs the content of every file; the tree retains "
+                + tree.retained().size() + " file(s) from an earlier run");
+        }
+        Map<String, byte[]> files = tree.files();
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        if (format == Format.ZIP) {
+            writeZip(files, buffered);
+        } else {
+            writeTar(files, buffered);
+        }
+        buffered.flush();
+        log.info("Wrote {} file(s) as {} to {}", files.size(), format, target);
+        return new Stats(files.size(), 0, 0);
+    }
+
+    private void writeZip(Map<String, byte[]> files, OutputStream buffered) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(buffered, StandardCharsets.UTF_8);
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            ZipEntry entry = new ZipEntry(file.getKey());
+            entry.setTimeLocal(ZIP_TIME);
+            zip.putNextEntry(entry);
+            zip.write(file.getValue());
+            zip.closeEntry();
+        }
+        // finish writes the central directory without closing the underlying stream
+        zip.finish();
+    }
+
+    private void writeTar(Map<String, byte[]> files, OutputStream buffered) throws IOException {
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            byte[] name = file.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] data = file.getValue();
+            byte[] header = tarHeader(name, data.length, (byte) '0');
+            if (header == null) {
+                // the path does not fit a ustar header; a pax extended header carries it instead
+                byte[] pax = paxRecord("path", file.getKey());
+                buffered.write(tarHeader(truncate(name), pax.length, (byte) 'x'));
+                writePadded(buffered, pax);
+                header = tarHeader(truncate(name), data.length, (byte) '0');
+            }
+            buffered.write(header);
+            writePadded(buffered, data);
+        }
+        buffered.write(new byte[2 * BLOCK]);
+    }
+
+    /**
+     * Returns a ustar header, or {@code null} if {@code name} fits neither the name field nor prefix and name.
+     */
+    private static byte[] tarHeader(byte[] name, long size, byte type) {
+        byte[] header = new byte[BLOCK];
+        if (name.length <= 100) {
+            System.arraycopy(name, 0, header, 0, name.length);
+        } else {
+            int split = -1;
+            for (int i = Math.min(name.length - 1, 155); i > 0; i--) {
+                if (name[i] == '/' && name.length - i - 1 <= 100) {
+                    split = i;
+                    break;
+                }
+            }
+            if (split < 0) {
+                return null;
+            }
+            System.arraycopy(name, split + 1, header, 0, name.length - split - 1);
+            System.arraycopy(name, 0, header, 345, split);
+        }
+        octal(header, 100, 8, 0644);
+        octal(header, 108, 8, 0);
+        octal(header, 116, 8, 0);
+        octal(header, 124, 12, size);
+        octal(header, 136, 12, 0);
+        header[156] = type;
+        System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+        header[263] = '0';
+        header[264] = '0';
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        octal(header, 148, 7, checksum);
+        return header;
+    }
+
+    private static void octal(byte[] header, int offset, int length, long value) {
+        String digits = Long.toOctalString(value);
+        int width = length - 1;
+        for (int i = 0; i < width; i++) {
+            int index = digits.length() - width + i;
+            header[offset + i] = (byte) (index < 0 ? '0' : digits.charAt(index));
+        }
+        header[offset + width] = 0;
+    }
+
+    private static byte[] paxRecord(String key, String value) {
+        String body = " " + key + "=" + value + "\n";
+        int length = body.getBytes(StandardCharsets.UTF_8).length;
+        int total = length + String.valueOf(length).length();
+        if (String.valueOf(total).length() != String.valueOf(length).length()) {
+            total++;
+        }
+        return (total + body).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] truncate(byte[] name) {
+        byte[] truncated = new byte[Math.min(name.length, 100)];
+        System.arraycopy(name, 0, truncated, 0, truncated.length);
+        return truncated;
+    }
+
+    private static void writePadded(OutputStream out, byte[] data) throws IOException {
+        out.write(data);
+        int remainder = data.length % BLOCK;
+        if (remainder != 0) {
+            out.write(new byte[BLOCK - remainder]);
+        }
+    }
+}
@@ -1,166 +1,206 @@
 package ai.migrator.generation;
 
+import ai.migrator.config.MigrationProperties;
 import ai.migrator.model.*;
-import ai.migrator.transform.DeterministicTransformService;
+import ai.migrator.transform.NamingService;
+import ai.migrator.transform.SpecFingerprints;
+import ai.migrator.transform.TypeMapper;
+import ai.migrator.util.Hashing;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Renders the FastAPI project for the migration specs into a {@link VirtualOutputTree}. Models, services and
+ * routers are put with a source fingerprint made of the {@link SpecFingerprints} of the records they are rendered
+ * from and of the templates and type tables, and files whose source matches the previous run are retained
+ * instead of rendered again.
+ */
 @Service
 public class FastApiGenerator {
 
-    private final DeterministicTransformService typeMapper;
+    /** Part of every source fingerprint; bump it when a change to the rendering code changes the output. */
+    private static final String RENDER_VERSION = "1";
 
-    public FastApiGenerator(DeterministicTransformService typeMapper) {
-        this.typeMapper = typeMapper;
-    }
-
-    public void generateModule(Path outputDir, MigrationSpec migrationSpec, boolean multiModule) throws IOException {
-        Path appDir = outputDir.resolve("app");
-        Files.createDirectories(appDir);
-        writeInit(appDir);
-
-        Path baseDir = moduleBaseDir(appDir, migrationSpec.moduleName(), multiModule);
-        Files.createDirectories(baseDir);
-        writeInit(baseDir);
-
-        Path modelsDir = baseDir.resolve("models");
-        Path routersDir = baseDir.resolve("routers");
-        Path servicesDir = baseDir.resolve("services");
-        Path reposDir = baseDir.resolve("repositories");
-        Path coreDir = baseDir.resolve("core");
-
-        Files.createDirectories(modelsDir);
-        Files.createDirectories(routersDir);
-        Files.createDirectories(servicesDir);
-        Files.createDirectories(reposDir);
-        Files.createDirectories(coreDir);
-
-        writeInit(modelsDir);
-        writeInit(routersDir);
-        writeInit(servicesDir);
-        writeInit(reposDir);
-        writeInit(coreDir);
+    private final TypeMapper typeMapper;
+    private final NamingService naming;
+    private final FastApiTemplates templates;
+    private final SpecFingerprints fingerprints;
+    private final String renderContext;
+    private final int threads;
 
-        writeModels(modelsDir, migrationSpec);
-        writeServices(servicesDir, migrationSpec);
-        writeRepositories(reposDir, migrationSpec);
-        writeCore(coreDir, migrationSpec, multiModule);
-        writeRouters(routersDir, migrationSpec, multiModule);
+    public FastApiGenerator(TypeMapper typeMapper, NamingService naming, FastApiTemplates templates,
+                            SpecFingerprints fingerprints, MigrationProperties properties) {
+        this.typeMapper = typeMapper;
+        this.naming = naming;
+        this.templates = templates;
+        this.fingerprints = fingerprints;
+        this.renderContext = Hashing.newSha256()
+            .put(RENDER_VERSION).put('\u0000')
+            .put(templates.fingerprint()).put('\u0000')
+            .put(typeMapper.fingerprint())
+            .hex();
+        this.threads = properties.getGeneratorThreads() > 0
+            ? properties.getGeneratorThreads()
+            : Runtime.getRuntime().availableProcessors();
+    }
+
+    public void generateModule(VirtualOutputTree tree, MigrationSpec migrationSpec, boolean multiModule) {
+        String appDir = "app";
+        writeInit(tree, appDir);
+
+        String baseDir = moduleBaseDir(tree, appDir, migrationSpec.moduleName(), multiModule);
+        writeInit(tree, baseDir);
+
+        String modelsDir = VirtualOutputTree.path(baseDir, "models");
+        String routersDir = VirtualOutputTree.path(baseDir, "routers");
+        String servicesDir = VirtualOutputTree.path(baseDir, "services");
+        String reposDir = VirtualOutputTree.path(baseDir, "repositories");
+        String coreDir = VirtualOutputTree.path(baseDir, "core");
+
+        writeInit(tree, routersDir);
+        writeInit(tree, servicesDir);
+        writeInit(tree, reposDir);
+        writeInit(tree, coreDir);
+
+        // models, services and routers are rendered in parallel and put into the tree in the sequential order
+        try (ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null) {
+            writeModels(tree, modelsDir, migrationSpec, pool);
+            writeServices(tree, servicesDir, migrationSpec, pool);
+            writeRepositories(tree, reposDir, migrationSpec);
+            writeCore(tree, coreDir, migrationSpec, multiModule);
+            writeRouters(tree, routersDir, migrationSpec, multiModule, pool);
+        }
 
         if (!multiModule) {
-            writeMain(appDir, migrationSpec);
-            writeRootArtifacts(outputDir, migrationSpec.projectName());
+            writeMain(tree, appDir, migrationSpec);
+            writeRootArtifacts(tree, migrationSpec.projectName());
         }
     }
 
-    public void generateRoot(Path outputDir, List<MigrationSpec> modules, boolean multiModule) throws IOException {
+    public void generateRoot(VirtualOutputTree tree, List<MigrationSpec> modules, boolean multiModule) {
         if (!multiModule) {
             return;
         }
-        Path appDir = outputDir.resolve("app");
-        Files.createDirectories(appDir);
-        writeInit(appDir);
-        Path modulesDir = appDir.resolve("modules");
-        Files.createDirectories(modulesDir);
-        writeInit(modulesDir);
+        String appDir = "app";
+        writeInit(tree, appDir);
+        writeInit(tree, VirtualOutputTree.path(appDir, "modules"));
 
-        Files.writeString(appDir.resolve("main.py"), renderRootMain(modules));
-        writeRootArtifacts(outputDir, modules.isEmpty() ? "app" : modules.getFirst().projectName());
+        tree.put(VirtualOutputTree.path(appDir, "main.py"), renderRootMain(modules));
+        writeRootArtifacts(tree, modules.isEmpty() ? "app" : modules.getFirst().projectName());
     }
 
-    private Path moduleBaseDir(Path appDir, String moduleName, boolean multiModule) throws IOException {
+    private String moduleBaseDir(VirtualOutputTree tree, String appDir, String moduleName, boolean multiModule) {
         if (!multiModule || moduleName == null || moduleName.isBlank()) {
             return appDir;
         }
-        Path modulesDir = appDir.resolve("modules");
-        Files.createDirectories(modulesDir);
-        writeInit(modulesDir);
-        Path moduleDir = modulesDir.resolve(modulePackageName(moduleName));
-        Files.createDirectories(moduleDir);
-        writeInit(moduleDir);
+        String modulesDir = VirtualOutputTree.path(appDir, "modules");
+        writeInit(tree, modulesDir);
+        String moduleDir = VirtualOutputTree.path(modulesDir, naming.modulePackage(moduleName));
+        writeInit(tree, moduleDir);
         return moduleDir;
     }
 
-    private void writeRootArtifacts(Path outputDir, String projectName) throws IOException {
-        Files.writeString(outputDir.resolve("requirements.txt"), "fastapi\npydantic\npydantic-settings\nuvicorn\n");
-        Files.writeString(outputDir.resolve("README.md"), renderReadme(projectName));
+    private void writeRootArtifacts(VirtualOutputTree tree, String projectName) {
+        tree.put("requirements.txt", templates.render(FastApiTemplates.REQUIREMENTS, Map.of()));
+        tree.put("README.md", templates.render(FastApiTemplates.README, Map.of("projectName", projectName)));
     }
 
-    private void writeInit(Path dir) throws IOException {
-        Files.writeString(dir.resolve("__init__.py"), "");
+    private void writeInit(VirtualOutputTree tree, String dir) {
+        tree.put(VirtualOutputTree.path(dir, "__init__.py"), "");
     }
 
-    private void writeModels(Path modelsDir, MigrationSpec spec) throws IOException {
-        List<DtoSpec> dtos = spec.dtos();
-        List<String> exports = new ArrayList<>();
-
-        for (DtoSpec dto : dtos) {
-            String fileName = toSnake(dto.name()) + ".py";
-            Files.writeString(modelsDir.resolve(fileName), renderModel(dto));
-            exports.add("from ." + toSnake(dto.name()) + " import " + dto.name());
+    /**
+     * Renders {@code items} in order, on the pool's workers when there is a pool.
+     */
+    private <T> List<byte[]> renderAll(List<T> items, Function<T, byte[]> renderer, ForkJoinPool pool) {
+        if (pool == null || items.size() < 2) {
+            return items.stream().map(renderer).toList();
         }
+        return pool.submit(() -> items.parallelStream().map(renderer).toList()).join();
+    }
 
-        StringBuilder init = new StringBuilder();
-        for (String line : exports) {
-            init.append(line).append("\n");
-        }
-        if (!exports.isEmpty()) {
-            init.append("\n__all__ = [\n");
-            for (DtoSpec dto : dtos) {
-                init.append("    \"").append(dto.name()).append("\",\n");
+    /**
+     * Puts a file per item into the tree in order, rendering only the items whose file is not current for its
+     * source fingerprint.
+     */
+    private <T> void writeAll(VirtualOutputTree tree, List<T> items, Function<T, String> path,
+                              Function<T, String> source, Function<T, byte[]> renderer, ForkJoinPool pool) {
+        List<String> paths = new ArrayList<>(items.size());
+        List<String> sources = new ArrayList<>(items.size());
+        List<T> stale = new ArrayList<>();
+        for (T item : items) {
+            String file = path.apply(item);
+            String itemSource = source.apply(item);
+            paths.add(file);
+            sources.add(itemSource);
+            if (!tree.isCurrent(file, itemSource)) {
+                stale.add(item);
             }
-            init.append("]\n");
         }
 
-        Files.writeString(modelsDir.resolve("__init__.py"), init.toString());
+        List<byte[]> rendered = renderAll(stale, renderer, pool);
+        int next = 0;
+        for (int i = 0; i < items.size(); i++) {
+            if (tree.isCurrent(paths.get(i), sources.get(i))) {
+                tree.retain(paths.get(i), sources.get(i));
+            } else {
+                tree.put(paths.get(i), rendered.get(next++), sources.get(i));
+            }
+        }
     }
 
-    private String renderModel(DtoSpec dto) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("from __future__ import annotations\n\n");
-        sb.append("from pydantic import BaseModel, Field\n");
-
-        boolean needsList = dto.fields().stream().anyMatch(f -> f.type().collection());
-        boolean needsOptional = dto.fields().stream().anyMatch(FieldSpec::optional);
-        boolean needsEmail = dto.fields().stream().anyMatch(f -> Boolean.TRUE.equals(f.validation().email()));
-        boolean needsConfig = dto.fields().stream().anyMatch(f -> f.jsonAlias() != null && !f.jsonAlias().isBlank());
-
-        List<String> typing = new ArrayList<>();
-        if (needsList) typing.add("List");
-        if (needsOptional) typing.add("Optional");
-        if (!typing.isEmpty()) {
-            sb.append("from typing import ").append(String.join(", ", typing)).append("\n");
-        }
-        if (needsEmail) {
-            sb.append("from pydantic import EmailStr\n");
-        }
-        if (needsConfig) {
-            sb.append("from pydantic import ConfigDict\n");
+    private String source(String kind, String... parts) {
+        Hashing.Hasher hasher = Hashing.newSha256().put(renderContext).put('\u0000').put(kind);
+        for (String part : parts) {
+            hasher.put('\u0000').put(part);
         }
-        sb.append("\n");
+        return hasher.hex();
+    }
 
-        sb.append("class ").append(dto.name()).append("(BaseModel):\n");
-        if (needsConfig) {
-            sb.append("    model_config = ConfigDict(populate_by_name=True)\n\n");
-        }
+    private void writeModels(VirtualOutputTree tree, String modelsDir, MigrationSpec spec, ForkJoinPool pool) {
+        List<DtoSpec> dtos = spec.dtos();
+        List<Map<String, Object>> models = new ArrayList<>(dtos.size());
 
-        if (dto.fields().isEmpty()) {
-            sb.append("    pass\n");
-            return sb.toString();
+        writeAll(tree, dtos,
+            dto -> VirtualOutputTree.path(modelsDir, naming.snake(dto.name()) + ".py"),
+            dto -> source("model", fingerprints.dto(dto)),
+            this::renderModel, pool);
+        for (DtoSpec dto : dtos) {
+            models.add(Template.scope("module", naming.snake(dto.name()), "name", dto.name()));
         }
 
+        tree.put(VirtualOutputTree.path(modelsDir, "__init__.py"),
+            templates.render(FastApiTemplates.MODELS_INIT, Template.scope("models", models, "hasModels", !models.isEmpty())));
+    }
+
+    private byte[] renderModel(DtoSpec dto) {
+        Map<String, Set<String>> imports = new TreeMap<>();
+        List<Map<String, Object>> fields = new ArrayList<>(dto.fields().size());
+        boolean needsEmail = false;
+        boolean needsConfig = false;
         for (FieldSpec field : dto.fields()) {
             String type = resolveFieldType(field);
-            String fieldLine = renderFieldLine(field, type);
-            sb.append(fieldLine).append("\n");
+            addImports(imports, type);
+            if (field.optional()) {
+                imports.computeIfAbsent("typing", module -> new TreeSet<>()).add("Optional");
+            }
+            needsEmail |= Boolean.TRUE.equals(field.validation().email());
+            needsConfig |= field.jsonAlias() != null && !field.jsonAlias().isBlank();
+            fields.add(fieldView(field, type));
         }
 
-        return sb.toString();
+        return templates.render(FastApiTemplates.MODEL, Template.scope(
+            "name", dto.name(),
+            "typing", String.join(", ", imports.getOrDefault("typing", Set.of())),
+            "imports", moduleImports(imports),
+            "email", needsEmail,
+            "config", needsConfig,
+            "fields", fields
+        ));
     }
 
     private String resolveFieldType(FieldSpec field) {
@@ -170,15 +210,11 @@ public class FastApiGenerator {
         return typeMapper.mapJavaType(field.type());
     }
 
-    private String renderFieldLine(FieldSpec field, String type) {
-        StringBuilder sb = new StringBuilder();
-        String name = field.name();
+    private Map<String, Object> fieldView(FieldSpec field, String type) {
         boolean optional = field.optional();
+        String annotatedType = optional && !type.startsWith("Optional[") ? "Optional[" + type + "]" : type;
 
-        String annotatedType = optional ? "Optional[" + type + "]" : type;
-        String defaultValue = optional ? "None" : "...";
-
-        List<String> args = new ArrayList<>();
+        StringJoiner args = new StringJoiner(", ");
         ValidationSpec v = field.validation();
         if (v != null) {
             Integer minLength = v.minLength();
@@ -218,18 +254,13 @@ public class FastApiGenerator {
             args.add("alias=\"" + field.jsonAlias().replace("\"", "\\\"") + "\"");
         }
 
-        if (!args.isEmpty()) {
-            sb.append("    ").append(name).append(": ").append(annotatedType)
-                .append(" = Field(").append(defaultValue).append(", ")
-                .append(String.join(", ", args)).append(")");
-        } else {
-            sb.append("    ").append(name).append(": ").append(annotatedType);
-            if (optional) {
-                sb.append(" = None");
-            }
-        }
-
-        return sb.toString();
+        return Template.scope(
+            "name", field.name(),
+            "type", annotatedType,
+            "default", optional ? "None" : "...",
+            "optional", optional,
+            "args", args.toString()
+        );
     }
 
     private String trimDouble(Double value) {
@@ -242,404 +273,226 @@ public class FastApiGenerator {
         return value.toString();
     }
 
-    private void writeServices(Path servicesDir, MigrationSpec spec) throws IOException {
-        for (ServiceSpec service : spec.services()) {
-            String fileName = toSnake(service.name()) + ".py";
-            Files.writeString(servicesDir.resolve(fileName), renderService(service));
-        }
+    private void writeServices(VirtualOutputTree tree, String servicesDir, MigrationSpec spec, ForkJoinPool pool) {
+        writeAll(tree, spec.services(),
+            service -> VirtualOutputTree.path(servicesDir, naming.snake(service.name()) + ".py"),
+            service -> source("service", fingerprints.service(service)),
+            this::renderService, pool);
     }
 
-    private String renderService(ServiceSpec service) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("from __future__ import annotations\n\n");
-        sb.append("from typing import Any\n\n");
-        sb.append("class ").append(service.name()).append(":\n");
-        sb.append("    def __init__(self, **deps: Any) -> None:\n");
-        sb.append("        self._deps = deps\n\n");
-
-        if (service.methods().isEmpty()) {
-            sb.append("    pass\n");
-            return sb.toString();
-        }
-
+    private byte[] renderService(ServiceSpec service) {
+        List<Map<String, Object>> methods = new ArrayList<>(service.methods().size());
         for (MethodSpec method : service.methods()) {
-            sb.append("    def ").append(toSnake(method.name())).append("(self");
+            List<Map<String, Object>> params = new ArrayList<>(method.params().size());
             for (MethodParamSpec param : method.params()) {
-                String type = typeMapper.mapJavaType(param.type());
-                sb.append(", ").append(toSnake(param.name())).append(": ").append(type);
+                params.add(Template.scope("name", naming.snake(param.name()), "type", typeMapper.mapJavaType(param.type())));
             }
-            sb.append(") -> Any:\n");
-            sb.append("        raise NotImplementedError(\"Service method not implemented\")\n\n");
+            methods.add(Template.scope("name", naming.snake(method.name()), "params", params));
         }
-
-        return sb.toString();
+        return templates.render(FastApiTemplates.SERVICE, Template.scope("name", service.name(), "methods", methods));
     }
 
-    private void writeRepositories(Path reposDir, MigrationSpec spec) throws IOException {
+    private void writeRepositories(VirtualOutputTree tree, String reposDir, MigrationSpec spec) {
         for (RepositorySpec repository : spec.repositories()) {
-            String fileName = toSnake(repository.name()) + ".py";
-            Files.writeString(reposDir.resolve(fileName), renderRepository(repository));
+            String fileName = naming.snake(repository.name()) + ".py";
+            tree.put(VirtualOutputTree.path(reposDir, fileName),
+                templates.render(FastApiTemplates.REPOSITORY, Template.scope("name", repository.name())));
         }
     }
 
-    private String renderRepository(RepositorySpec repository) {
-        return "from __future__ import annotations\n\n" +
-            "class " + repository.name() + ":\n" +
-            "    pass\n";
-    }
-
-    private void writeCore(Path coreDir, MigrationSpec spec, boolean multiModule) throws IOException {
-        Files.writeString(coreDir.resolve("settings.py"), renderSettings(spec));
-        Files.writeString(coreDir.resolve("container.py"), renderContainer(spec, multiModule));
-        Files.writeString(coreDir.resolve("dependencies.py"), renderDependencies(spec, multiModule));
-        Files.writeString(coreDir.resolve("exceptions.py"), renderExceptions());
-        Files.writeString(coreDir.resolve("handlers.py"), renderHandlers());
+    private void writeCore(VirtualOutputTree tree, String coreDir, MigrationSpec spec, boolean multiModule) {
+        Map<String, Object> core = Template.scope(
+            "projectName", spec.projectName(),
+            "prefix", modulePrefix(spec.moduleName(), multiModule),
+            "services", spec.services().stream().map(service -> classView(service.name())).toList(),
+            "repositories", spec.repositories().stream().map(repository -> classView(repository.name())).toList()
+        );
+        tree.put(VirtualOutputTree.path(coreDir, "settings.py"), templates.render(FastApiTemplates.SETTINGS, core));
+        tree.put(VirtualOutputTree.path(coreDir, "container.py"), templates.render(FastApiTemplates.CONTAINER, core));
+        tree.put(VirtualOutputTree.path(coreDir, "dependencies.py"), templates.render(FastApiTemplates.DEPENDENCIES, core));
+        tree.put(VirtualOutputTree.path(coreDir, "exceptions.py"), templates.render(FastApiTemplates.EXCEPTIONS, core));
+        tree.put(VirtualOutputTree.path(coreDir, "handlers.py"), templates.render(FastApiTemplates.HANDLERS, core));
     }
 
-    private String renderSettings(MigrationSpec spec) {
-        return "from pydantic_settings import BaseSettings, SettingsConfigDict\n\n" +
-            "class Settings(BaseSettings):\n" +
-            "    app_name: str = \"" + spec.projectName() + "\"\n\n" +
-            "    model_config = SettingsConfigDict(env_prefix=\"APP_\")\n";
-    }
-
-    private String renderContainer(MigrationSpec spec, boolean multiModule) {
-        String prefix = modulePrefix(spec.moduleName(), multiModule);
-        StringBuilder sb = new StringBuilder();
-        sb.append("from __future__ import annotations\n\n");
-        sb.append("from .settings import Settings\n");
-        if (!spec.services().isEmpty()) {
-            for (ServiceSpec service : spec.services()) {
-                sb.append("from ").append(prefix).append(".services.")
-                    .append(toSnake(service.name())).append(" import ")
-                    .append(service.name()).append("\n");
-            }
-        }
-        if (!spec.repositories().isEmpty()) {
-            for (RepositorySpec repo : spec.repositories()) {
-                sb.append("from ").append(prefix).append(".repositories.")
-                    .append(toSnake(repo.name())).append(" import ")
-                    .append(repo.name()).append("\n");
-            }
-        }
-        sb.append("\n");
-        sb.append("class Container:\n");
-        sb.append("    def __init__(self) -> None:\n");
-        sb.append("        self.settings = Settings()\n");
-        for (RepositorySpec repo : spec.repositories()) {
-            String var = toSnake(repo.name());
-            sb.append("        self.").append(var).append(" = ").append(repo.name()).append("()\n");
-        }
-        for (ServiceSpec service : spec.services()) {
-            String var = toSnake(service.name());
-            sb.append("        self.").append(var).append(" = ").append(service.name()).append("()\n");
-        }
-        sb.append("\ncontainer = Container()\n");
-        return sb.toString();
+    private Map<String, Object> classView(String className) {
+        return Template.scope("module", naming.snake(className), "name", className);
     }
 
-    private String renderDependencies(MigrationSpec spec, boolean multiModule) {
-        String prefix = modulePrefix(spec.moduleName(), multiModule);
-        StringBuilder sb = new StringBuilder();
-        sb.append("from __future__ import annotations\n\n");
-        sb.append("from .container import container\n");
-        for (ServiceSpec service : spec.services()) {
-            sb.append("from ").append(prefix).append(".services.")
-                .append(toSnake(service.name())).append(" import ")
-                .append(service.name()).append("\n");
-        }
-        sb.append("\n");
-        for (ServiceSpec service : spec.services()) {
-            String var = toSnake(service.name());
-            sb.append("def get_").append(var).append("() -> ").append(service.name()).append(":\n");
-            sb.append("    return container.").append(var).append("\n\n");
-        }
-        if (spec.services().isEmpty()) {
-            sb.append("# No services detected\n");
-        }
-        return sb.toString();
-    }
-
-    private String renderExceptions() {
-        return "class BadRequestException(Exception):\n" +
-            "    pass\n\n" +
-            "class NotFoundException(Exception):\n" +
-            "    pass\n\n" +
-            "class AppException(Exception):\n" +
-            "    pass\n";
-    }
-
-    private String renderHandlers() {
-        return "from __future__ import annotations\n\n" +
-            "from datetime import datetime\n" +
-            "from fastapi import Request\n" +
-            "from fastapi.responses import JSONResponse\n" +
-            "from .exceptions import BadRequestException, NotFoundException\n\n" +
-            "def _build_payload(status: int, message: str) -> dict:\n" +
-            "    return {\"timestamp\": datetime.utcnow().isoformat(), \"status\": status, \"message\": message}\n\n" +
-            "def add_exception_handlers(app):\n" +
-            "    app.add_exception_handler(NotFoundException, _not_found)\n" +
-            "    app.add_exception_handler(BadRequestException, _bad_request)\n\n" +
-            "async def _not_found(request: Request, exc: NotFoundException):\n" +
-            "    return JSONResponse(status_code=404, content=_build_payload(404, str(exc)))\n\n" +
-            "async def _bad_request(request: Request, exc: BadRequestException):\n" +
-            "    return JSONResponse(status_code=400, content=_build_payload(400, str(exc)))\n";
-    }
-
-    private void writeRouters(Path routersDir, MigrationSpec spec, boolean multiModule) throws IOException {
+    private void writeRouters(VirtualOutputTree tree, String routersDir, MigrationSpec spec, boolean multiModule,
+                              ForkJoinPool pool) {
         Map<String, List<EndpointSpec>> grouped = spec.endpoints().stream()
             .collect(Collectors.groupingBy(EndpointSpec::controllerClass, LinkedHashMap::new, Collectors.toList()));
 
         Set<String> dtoNames = spec.dtos().stream().map(DtoSpec::name).collect(Collectors.toSet());
+        // a controller's fingerprint covers its endpoints and the DTOs they use, which decide the model imports
+        Map<String, String> controllerFingerprints = fingerprints.controllers(spec);
+        String prefix = modulePrefix(spec.moduleName(), multiModule);
 
-        for (Map.Entry<String, List<EndpointSpec>> entry : grouped.entrySet()) {
-            String controllerClass = entry.getKey();
-            List<EndpointSpec> endpoints = entry.getValue();
-            String controllerSimple = simpleName(controllerClass);
-            String fileName = toSnake(controllerSimple) + ".py";
-            Files.writeString(routersDir.resolve(fileName), renderRouter(endpoints, dtoNames, spec.moduleName(), multiModule));
-        }
+        List<Map.Entry<String, List<EndpointSpec>>> controllers = new ArrayList<>(grouped.entrySet());
+        writeAll(tree, controllers,
+            entry -> VirtualOutputTree.path(routersDir, naming.snake(simpleName(entry.getKey())) + ".py"),
+            entry -> source("router", prefix, controllerFingerprints.get(entry.getKey())),
+            entry -> renderRouter(entry.getValue(), dtoNames, spec.moduleName(), multiModule), pool);
     }
 
-    private String renderRouter(List<EndpointSpec> endpoints, Set<String> dtoNames, String moduleName, boolean multiModule) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("from __future__ import annotations\n\n");
-        sb.append("from fastapi import APIRouter, Body, Depends, Header, HTTPException, Path, Query\n");
-        boolean needsList = needsListTypes(endpoints);
-        sb.append("from typing import Optional");
-        if (needsList) {
-            sb.append(", List");
+    byte[] renderRouter(List<EndpointSpec> endpoints, Set<String> dtoNames, String moduleName, boolean multiModule) {
+        Map<String, Set<String>> imports = imports(endpoints);
+        StringJoiner typing = new StringJoiner(", ").add("Optional");
+        for (String name : imports.getOrDefault("typing", Set.of())) {
+            if (!name.equals("Optional")) {
+                typing.add(name);
+            }
         }
-        sb.append("\n");
-
-        String prefix = modulePrefix(moduleName, multiModule);
 
         Set<String> modelImports = new LinkedHashSet<>();
-        Set<String> dependencyImports = new LinkedHashSet<>();
-        Set<String> serviceImports = new LinkedHashSet<>();
-
+        Map<String, Map<String, Object>> services = new LinkedHashMap<>();
+        List<RouteView> routes = new ArrayList<>(endpoints.size());
         for (EndpointSpec endpoint : endpoints) {
-            String reqModel = resolveModelName(endpoint.requestBody(), dtoNames);
-            if (reqModel != null) {
-                modelImports.add(reqModel);
+            String requestModel = resolveModelName(endpoint.requestBody(), dtoNames);
+            if (requestModel != null) {
+                modelImports.add(requestModel);
             }
-            String respModel = resolveModelName(endpoint.responseBody(), dtoNames);
-            if (respModel != null) {
-                modelImports.add(respModel);
+            String responseModel = resolveModelName(endpoint.responseBody(), dtoNames);
+            if (responseModel != null) {
+                modelImports.add(responseModel);
             }
             for (String service : endpoint.controllerServices()) {
-                String simple = simpleName(service);
-                serviceImports.add("from " + prefix + ".services." + toSnake(simple) + " import " + simple);
-                dependencyImports.add("from " + prefix + ".core.dependencies import get_" + toSnake(simple));
+                services.computeIfAbsent(simpleName(service), this::classView);
             }
+            routes.add(routeView(endpoint, requestModel, responseModel));
         }
 
-        if (!modelImports.isEmpty()) {
-            sb.append("from ").append(prefix).append(".models import ").append(String.join(", ", modelImports)).append("\n");
+        return templates.render(FastApiTemplates.ROUTER, Template.scope(
+            "typing", typing.toString(),
+            "imports", moduleImports(imports),
+            "prefix", modulePrefix(moduleName, multiModule),
+            "models", String.join(", ", modelImports),
+            "services", services.values(),
+            "controllerPrefix", endpoints.getFirst().controllerPath(),
+            "routes", routes
+        ));
+    }
+
+    private RouteView routeView(EndpointSpec endpoint, String requestModel, String responseModel) {
+        String routePath = endpoint.methodPath();
+        if (routePath == null || routePath.isBlank()) {
+            routePath = "/";
+        } else if (!routePath.startsWith("/")) {
+            routePath = "/" + routePath;
         }
-        if (!dependencyImports.isEmpty()) {
-            for (String dep : dependencyImports) {
-                sb.append(dep).append("\n");
-            }
+        if (responseModel == null && endpoint.responseBody() != null) {
+            responseModel = typeMapper.mapJavaType(endpoint.responseBody());
         }
-        if (!serviceImports.isEmpty()) {
-            for (String imp : serviceImports) {
-                sb.append(imp).append("\n");
-            }
-        }
-        sb.append("\n");
 
-        String controllerPrefix = endpoints.getFirst().controllerPath();
-        if (controllerPrefix == null) {
-            controllerPrefix = "";
+        List<ParamView> params = new ArrayList<>();
+        for (ParameterSpec param : endpoint.pathParams()) {
+            String type = typeMapper.mapJavaType(param.type());
+            params.add(paramView(params, naming.pythonIdentifier(param.name()), type, "Path", "...", null));
         }
-        if (!controllerPrefix.isBlank()) {
-            sb.append("router = APIRouter(prefix=\"").append(controllerPrefix).append("\")\n\n");
-        } else {
-            sb.append("router = APIRouter()\n\n");
+        for (ParameterSpec param : endpoint.queryParams()) {
+            params.add(requestParamView(params, param, "Query"));
+        }
+        for (ParameterSpec param : endpoint.headerParams()) {
+            params.add(requestParamView(params, param, "Header"));
         }
 
-        for (EndpointSpec endpoint : endpoints) {
-            String routePath = endpoint.methodPath();
-            if (routePath == null || routePath.isBlank()) {
-                routePath = "/";
-            } else if (!routePath.startsWith("/")) {
-                routePath = "/" + routePath;
-            }
-
-            String decorator = "@router." + endpoint.httpMethod().toLowerCase(Locale.ROOT) + "(\"" + routePath + "\"";
-            String responseModel = resolveModelName(endpoint.responseBody(), dtoNames);
-            if (responseModel != null) {
-                decorator += ", response_model=" + responseModel;
-            } else if (endpoint.responseBody() != null) {
-                decorator += ", response_model=" + typeMapper.mapJavaType(endpoint.responseBody());
-            }
-            if (endpoint.statusCode() != null) {
-                decorator += ", status_code=" + endpoint.statusCode();
-            }
-            decorator += ")\n";
-            sb.append(decorator);
-
-            List<String> params = new ArrayList<>();
-            for (ParameterSpec param : endpoint.pathParams()) {
-                String type = typeMapper.mapJavaType(param.type());
-                String pyName = toPythonIdentifier(param.name());
-                params.add(pyName + ": " + type + " = Path(...)");
-            }
-            for (ParameterSpec param : endpoint.queryParams()) {
-                String type = typeMapper.mapJavaType(param.type());
-                String pyName = toPythonIdentifier(param.name());
-                String defaultExpr = param.requiredEffective() ? "..." : "None";
-                String annotatedType = param.requiredEffective() ? type : ("Optional[" + type + "]");
-                if (!pyName.equals(param.name())) {
-                    params.add(pyName + ": " + annotatedType + " = Query(" + defaultExpr + ", alias=\"" + param.name() + "\")");
-                } else {
-                    params.add(pyName + ": " + annotatedType + " = Query(" + defaultExpr + ")");
-                }
-            }
-            for (ParameterSpec param : endpoint.headerParams()) {
-                String type = typeMapper.mapJavaType(param.type());
-                String pyName = toPythonIdentifier(param.name());
-                String defaultExpr = param.requiredEffective() ? "..." : "None";
-                String annotatedType = param.requiredEffective() ? type : ("Optional[" + type + "]");
-                if (!pyName.equals(param.name())) {
-                    params.add(pyName + ": " + annotatedType + " = Header(" + defaultExpr + ", alias=\"" + param.name() + "\")");
-                } else {
-                    params.add(pyName + ": " + annotatedType + " = Header(" + defaultExpr + ")");
-                }
-            }
-
-            String reqModel = resolveModelName(endpoint.requestBody(), dtoNames);
-            if (reqModel != null) {
-                params.add("payload: " + reqModel + " = Body(...)");
-            } else if (endpoint.requestBody() != null) {
-                params.add("payload: " + typeMapper.mapJavaType(endpoint.requestBody()) + " = Body(...)");
-            }
-
-            for (String service : endpoint.controllerServices()) {
-                String simple = simpleName(service);
-                String var = toSnake(simple);
-                params.add(var + ": " + simple + " = Depends(get_" + var + ")");
-            }
+        if (requestModel != null) {
+            params.add(paramView(params, "payload", requestModel, "Body", "...", null));
+        } else if (endpoint.requestBody() != null) {
+            params.add(paramView(params, "payload", typeMapper.mapJavaType(endpoint.requestBody()), "Body", "...", null));
+        }
 
-            String signature = String.join(", ", params);
-            sb.append("def ").append(toSnake(endpoint.methodName())).append("(").append(signature).append("):\n");
-            sb.append("    raise HTTPException(status_code=501, detail=\"Not implemented\")\n\n");
+        for (String service : endpoint.controllerServices()) {
+            String simple = simpleName(service);
+            String var = naming.snake(simple);
+            params.add(paramView(params, var, simple, "Depends", "get_" + var, null));
         }
 
-        return sb.toString();
+        return new RouteView(endpoint.httpMethod().toLowerCase(Locale.ROOT), routePath, responseModel,
+            endpoint.statusCode(), naming.snake(endpoint.methodName()), params);
     }
 
-    private void writeMain(Path appDir, MigrationSpec spec) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        sb.append("from fastapi import FastAPI\n");
-        sb.append("from app.core.handlers import add_exception_handlers\n");
+    private ParamView requestParamView(List<ParamView> params, ParameterSpec param, String source) {
+        String type = typeMapper.mapJavaType(param.type());
+        String pyName = naming.pythonIdentifier(param.name());
+        String defaultExpr = param.requiredEffective() ? "..." : "None";
+        String annotatedType = param.requiredEffective() || type.startsWith("Optional[") ? type : ("Optional[" + type + "]");
+        String alias = pyName.equals(param.name()) ? null : param.name();
+        return paramView(params, pyName, annotatedType, source, defaultExpr, alias);
+    }
 
-        Set<String> routerImports = new LinkedHashSet<>();
-        for (EndpointSpec endpoint : spec.endpoints()) {
-            String controller = simpleName(endpoint.controllerClass());
-            routerImports.add("from app.routers." + toSnake(controller) + " import router as " + toSnake(controller) + "_router");
-        }
-        for (String imp : routerImports) {
-            sb.append(imp).append("\n");
-        }
-        sb.append("\napp = FastAPI(title=\"").append(spec.projectName()).append("\")\n");
-        sb.append("add_exception_handlers(app)\n\n");
+    private static ParamView paramView(List<ParamView> params, String name, String type, String source,
+                                       String defaultExpr, String alias) {
+        return new ParamView(params.isEmpty() ? "" : ", ", name, type, source, defaultExpr, alias);
+    }
 
-        for (String imp : routerImports) {
-            String routerVar = imp.substring(imp.lastIndexOf(" as ") + 4);
-            sb.append("app.include_router(").append(routerVar).append(")\n");
+    private void writeMain(VirtualOutputTree tree, String appDir, MigrationSpec spec) {
+        Set<String> routerModules = new LinkedHashSet<>();
+        for (EndpointSpec endpoint : spec.endpoints()) {
+            routerModules.add(naming.snake(simpleName(endpoint.controllerClass())));
         }
+        List<Map<String, Object>> routers = routerModules.stream().map(module -> Template.scope("module", module)).toList();
 
-        Files.writeString(appDir.resolve("main.py"), sb.toString());
+        tree.put(VirtualOutputTree.path(appDir, "main.py"),
+            templates.render(FastApiTemplates.MAIN, Template.scope("title", spec.projectName(), "routers", routers)));
     }
 
-    private String renderRootMain(List<MigrationSpec> modules) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("from fastapi import FastAPI\n\n");
-
-        Set<String> routerImports = new LinkedHashSet<>();
-        Set<String> routerVars = new LinkedHashSet<>();
-        Set<String> handlerImports = new LinkedHashSet<>();
-        Set<String> handlerVars = new LinkedHashSet<>();
+    private byte[] renderRootMain(List<MigrationSpec> modules) {
+        Set<String> modulePackages = new LinkedHashSet<>();
+        Map<String, Map<String, Object>> routers = new LinkedHashMap<>();
 
         for (MigrationSpec spec : modules) {
-            String moduleName = modulePackageName(spec.moduleName());
-            String handlerVar = moduleName + "_add_handlers";
-            handlerImports.add("from app.modules." + moduleName + ".core.handlers import add_exception_handlers as " + handlerVar);
-            handlerVars.add(handlerVar);
+            String moduleName = naming.modulePackage(spec.moduleName());
+            modulePackages.add(moduleName);
             for (EndpointSpec endpoint : spec.endpoints()) {
-                String controller = simpleName(endpoint.controllerClass());
-                String routerVar = moduleName + "_" + toSnake(controller) + "_router";
-                routerImports.add("from app.modules." + moduleName + ".routers." + toSnake(controller)
-                    + " import router as " + routerVar);
-                routerVars.add(routerVar);
+                String router = naming.snake(simpleName(endpoint.controllerClass()));
+                routers.putIfAbsent(moduleName + "_" + router, Template.scope("module", moduleName, "router", router));
             }
         }
 
-        for (String imp : handlerImports) {
-            sb.append(imp).append("\n");
-        }
-        for (String imp : routerImports) {
-            sb.append(imp).append("\n");
-        }
-
-        sb.append("\napp = FastAPI(title=\"").append(modules.isEmpty() ? "app" : modules.getFirst().projectName()).append("\")\n\n");
-        for (String handler : handlerVars) {
-            sb.append(handler).append("(app)\n");
-        }
-        sb.append("\n");
-        for (String router : routerVars) {
-            sb.append("app.include_router(").append(router).append(")\n");
-        }
-
-        return sb.toString();
-    }
-
-    private String modulePackageName(String moduleName) {
-        if (moduleName == null || moduleName.isBlank()) {
-            return "module";
-        }
-        String snake = toSnake(moduleName);
-        String py = toPythonIdentifier(snake);
-        return py.toLowerCase(Locale.ROOT);
+        return templates.render(FastApiTemplates.ROOT_MAIN, Template.scope(
+            "title", modules.isEmpty() ? "app" : modules.getFirst().projectName(),
+            "modules", modulePackages.stream().map(module -> Template.scope("module", module)).toList(),
+            "routers", routers.values()
+        ));
     }
 
-    private boolean needsListTypes(List<EndpointSpec> endpoints) {
+    private Map<String, Set<String>> imports(List<EndpointSpec> endpoints) {
+        Map<String, Set<String>> imports = new TreeMap<>();
         for (EndpointSpec endpoint : endpoints) {
-            if (endpoint.requestBody() != null && typeMapper.mapJavaType(endpoint.requestBody()).contains("List[")) {
-                return true;
+            if (endpoint.requestBody() != null) {
+                addImports(imports, typeMapper.mapJavaType(endpoint.requestBody()));
             }
-            if (endpoint.responseBody() != null && typeMapper.mapJavaType(endpoint.responseBody()).contains("List[")) {
-                return true;
+            if (endpoint.responseBody() != null) {
+                addImports(imports, typeMapper.mapJavaType(endpoint.responseBody()));
             }
             for (ParameterSpec param : endpoint.queryParams()) {
-                if (typeMapper.mapJavaType(param.type()).contains("List[")) {
-                    return true;
-                }
+                addImports(imports, typeMapper.mapJavaType(param.type()));
             }
             for (ParameterSpec param : endpoint.pathParams()) {
-                if (typeMapper.mapJavaType(param.type()).contains("List[")) {
-                    return true;
-                }
+                addImports(imports, typeMapper.mapJavaType(param.type()));
             }
             for (ParameterSpec param : endpoint.headerParams()) {
-                if (typeMapper.mapJavaType(param.type()).contains("List[")) {
-                    return true;
-                }
+                addImports(imports, typeMapper.mapJavaType(param.type()));
             }
         }
-        return false;
+        return imports;
+    }
+
+    private void addImports(Map<String, Set<String>> imports, String pythonType) {
+        typeMapper.imports(pythonType).forEach((module, names) ->
+            imports.computeIfAbsent(module, key -> new TreeSet<>()).addAll(names));
     }
 
-    private String renderReadme(String projectName) {
-        return "# " + projectName + " FastAPI\n\n" +
-            "Generated by spring-ai-migrator.\n\n" +
-            "Run:\n\n" +
-            "```bash\n" +
-            "pip install -r requirements.txt\n" +
-            "uvicorn app.main:app --reload\n" +
-            "```\n";
+    /** The {@code from <module> import <names>} lines of the modules other than {@code typing}. */
+    private static List<Map<String, Object>> moduleImports(Map<String, Set<String>> imports) {
+        List<Map<String, Object>> lines = new ArrayList<>();
+        imports.forEach((module, names) -> {
+            if (!module.equals("typing")) {
+                lines.add(Template.scope("module", module, "names", String.join(", ", names)));
+            }
+        });
+        return lines;
     }
 
     private String resolveModelName(TypeRef typeRef, Set<String> dtoNames) {
@@ -657,7 +510,7 @@ public class FastApiGenerator {
         if (moduleName == null || moduleName.isBlank()) {
             return "app";
         }
-        return "app.modules." + modulePackageName(moduleName);
+        return "app.modules." + naming.modulePackage(moduleName);
     }
 
     private String simpleName(String typeName) {
@@ -668,41 +521,37 @@ public class FastApiGenerator {
         return idx == -1 ? typeName : typeName.substring(idx + 1);
     }
 
-    private String toSnake(String name) {
-        if (name == null || name.isBlank()) {
-            return "";
-        }
-        StringBuilder sb = new StringBuilder();
-        char[] chars = name.toCharArray();
-        for (int i = 0; i < chars.length; i++) {
-            char c = chars[i];
-            if (Character.isUpperCase(c)) {
-                if (i > 0) sb.append('_');
-                sb.append(Character.toLowerCase(c));
-            } else {
-                sb.append(c);
-            }
-        }
-        return sb.toString().replaceAll("__", "_");
-    }
-
-    private String toPythonIdentifier(String name) {
-        if (name == null || name.isBlank()) {
-            return "param";
-        }
-        String cleaned = name.replace('-', '_');
-        if (!Character.isJavaIdentifierStart(cleaned.charAt(0))) {
-            cleaned = "param_" + cleaned;
-        }
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < cleaned.length(); i++) {
-            char c = cleaned.charAt(i);
-            if (Character.isJavaIdentifierPart(c)) {
-                sb.append(c);
-            } else {
-                sb.append('_');
-            }
+    /** The names {@code router.py.tmpl} asks a route for; a record instead of a scope map per route. */
+    private record RouteView(String method, String path, String responseModel, Integer statusCode, String name,
+                             List<ParamView> params) implements Template.View {
+        @Override
+        public Object value(String key) {
+            return switch (key) {
+                case "method" -> method;
+                case "path" -> path;
+                case "responseModel" -> responseModel;
+                case "statusCode" -> statusCode;
+                case "name" -> name;
+                case "params" -> params;
+                default -> ABSENT;
+            };
+        }
+    }
+
+    /** The names {@code router.py.tmpl} asks a route parameter for. */
+    private record ParamView(String separator, String name, String type, String source, String defaultExpr,
+                             String alias) implements Template.View {
+        @Override
+        public Object value(String key) {
+            return switch (key) {
+                case "separator" -> separator;
+                case "name" -> name;
+                case "type" -> type;
+                case "source" -> source;
+                case "default" -> defaultExpr;
+                case "alias" -> alias;
+                default -> ABSENT;
+            };
         }
-        return sb.toString();
     }
 }
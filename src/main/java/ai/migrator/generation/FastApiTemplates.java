@@ -0,0 +1,124 @@
+package ai.migrator.generation;
+
+import ai.migrator.config.MigrationProperties;
+import ai.migrator.util.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The {@link Template}s the generator renders the FastAPI project from, compiled once at startup. Each template
+ * comes from {@code templates/fastapi/} in the jar unless {@code migrator.templateDir} holds a file of the same
+ * name, so the output can be customized without rebuilding the migrator. {@link #fingerprint()} covers the source
+ * of every template, so files rendered with other templates are not mistaken for current ones.
+ */
+@Component
+public class FastApiTemplates {
+
+    private static final Logger log = LoggerFactory.getLogger(FastApiTemplates.class);
+    private static final String CLASSPATH_DIR = "templates/fastapi/";
+
+    static final String MODEL = "model.py.tmpl";
+    static final String MODELS_INIT = "models_init.py.tmpl";
+    static final String SERVICE = "service.py.tmpl";
+    static final String REPOSITORY = "repository.py.tmpl";
+    static final String SETTINGS = "settings.py.tmpl";
+    static final String CONTAINER = "container.py.tmpl";
+    static final String DEPENDENCIES = "dependencies.py.tmpl";
+    static final String EXCEPTIONS = "exceptions.py.tmpl";
+    static final String HANDLERS = "handlers.py.tmpl";
+    static final String ROUTER = "router.py.tmpl";
+    static final String MAIN = "main.py.tmpl";
+    static final String ROOT_MAIN = "root_main.py.tmpl";
+    static final String REQUIREMENTS = "requirements.txt.tmpl";
+    static final String README = "README.md.tmpl";
+
+    private static final List<String> NAMES = List.of(MODEL, MODELS_INIT, SERVICE, REPOSITORY, SETTINGS, CONTAINER,
+        DEPENDENCIES, EXCEPTIONS, HANDLERS, ROUTER, MAIN, ROOT_MAIN, REQUIREMENTS, README);
+
+    private final Map<String, Template> templates = new HashMap<>();
+    private final String fingerprint;
+
+    public FastApiTemplates(MigrationProperties properties) {
+        Path overrideDir = properties.getTemplateDir();
+        if (overrideDir != null && !Files.isDirectory(overrideDir)) {
+            throw new IllegalStateException("Template directory does not exist: " + overrideDir);
+        }
+        int overridden = 0;
+        Hashing.Hasher hasher = Hashing.newSha256();
+        for (String name : NAMES) {
+            Path override = overrideDir == null ? null : overrideDir.resolve(name);
+            String source;
+            if (override != null && Files.isRegularFile(override)) {
+                source = readFile(override);
+                templates.put(name, Template.compile(override.toString(), source));
+                overridden++;
+            } else {
+                source = readClasspath(name);
+                templates.put(name, Template.compile(name, source));
+            }
+            hasher.put(name).put('\u0000').put(source).put('\u0000');
+        }
+        this.fingerprint = hasher.hex();
+        if (overrideDir != null) {
+            warnUnknown(overrideDir);
+            log.info("Using {} template(s) from {}", overridden, overrideDir);
+        }
+    }
+
+    public Template get(String name) {
+        Template template = templates.get(name);
+        if (template == null) {
+            throw new IllegalStateException("Unknown template: " + name);
+        }
+        return template;
+    }
+
+    public byte[] render(String name, Object model) {
+        return get(name).render(model);
+    }
+
+    /**
+     * SHA-256 of the names and sources of all templates in use.
+     */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    private void warnUnknown(Path overrideDir) {
+        try (Stream<Path> files = Files.list(overrideDir)) {
+            files.map(file -> file.getFileName().toString())
+                .filter(file -> !NAMES.contains(file))
+                .forEach(file -> log.warn("Ignoring unknown template {} in {}", file, overrideDir));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to list template directory: " + overrideDir, ex);
+        }
+    }
+
+    private static String readFile(Path file) {
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to load template: " + file, ex);
+        }
+    }
+
+    private static String readClasspath(String name) {
+        try (InputStream in = new ClassPathResource(CLASSPATH_DIR + name).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to load template: " + CLASSPATH_DIR + name, ex);
+        }
+    }
+}
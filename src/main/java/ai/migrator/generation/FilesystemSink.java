@@ -0,0 +1,217 @@
+package ai.migrator.generation;
+
+import ai.migrator.util.Hashing;
+import ai.migrator.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Writes the tree to the output directory, only rewriting files whose content changed, so unchanged files keep
+ * their modification time and tools watching the output (uvicorn {@code --reload}, Docker layer caches) see only
+ * real changes. Each run's files are recorded with their hash, size and modification time in
+ * {@code .migrator/manifest.json}; a file whose recorded entry still matches is skipped without being read, any
+ * other existing file is compared byte by byte. Files listed by the previous run that this run did not produce
+ * are deleted. Writes run on up to {@code threads} workers. The manifest also keeps each file's source
+ * fingerprint, so the next run can {@linkplain VirtualOutputTree#retain retain} files whose source is unchanged
+ * without rendering them (see {@link #intactSources}).
+ */
+public class FilesystemSink implements OutputSink {
+
+    private static final Logger log = LoggerFactory.getLogger(FilesystemSink.class);
+    static final String MANIFEST_FILE = ".migrator/manifest.json";
+
+    private final Path outputDir;
+    private final int threads;
+
+    public FilesystemSink(Path outputDir, int threads) {
+        this.outputDir = outputDir.toAbsolutePath().normalize();
+        this.threads = threads;
+    }
+
+    @Override
+    public Stats flush(VirtualOutputTree tree) throws IOException {
+        Map<String, Entry> previous = readManifest(outputDir);
+        Map<String, byte[]> files = tree.files();
+        Map<String, String> sources = tree.sources();
+        Map<String, Entry> current = new ConcurrentHashMap<>();
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        // a directory is entered once it exists; other writers into it wait in computeIfAbsent until then
+        Map<Path, Boolean> directories = new ConcurrentHashMap<>();
+
+        if (threads <= 1 || files.size() < 2) {
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                write(file.getKey(), file.getValue(), sources, previous, current, written, directories);
+            }
+        } else {
+            try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+                pool.submit(() -> files.entrySet().parallelStream().forEach(file -> {
+                    try {
+                        write(file.getKey(), file.getValue(), sources, previous, current, written, directories);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                })).join();
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        for (String key : tree.retained()) {
+            Entry recorded = previous.get(key);
+            if (recorded == null) {
+                throw new IllegalStateException("Retained file " + key + " is not in the output manifest");
+            }
+            current.put(key, recorded);
+        }
+
+        int deleted = 0;
+        for (String key : previous.keySet()) {
+            if (current.containsKey(key)) {
+                continue;
+            }
+            Path file = outputDir.resolve(key);
+            if (Files.deleteIfExists(file)) {
+                deleted++;
+                deleteEmptyParents(file.getParent());
+            }
+        }
+        Path manifest = outputDir.resolve(MANIFEST_FILE);
+        Files.createDirectories(manifest.getParent());
+        JsonUtils.writeJson(manifest, new Manifest(new TreeMap<>(current)));
+
+        Stats stats = new Stats(written.size(), current.size() - written.size(), deleted);
+        log.info("Output files in {}: {} written, {} unchanged, {} deleted",
+            outputDir, stats.written(), stats.unchanged(), stats.deleted());
+        return stats;
+    }
+
+    /**
+     * Returns the files the previous run recorded for {@code outputDir}, or an empty map.
+     */
+    static Map<String, Entry> readManifest(Path outputDir) {
+        Path manifest = outputDir.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) {
+            return Map.of();
+        }
+        try {
+            return JsonUtils.readJson(manifest, Manifest.class).files();
+        } catch (Exception ex) {
+            log.warn("Ignoring unreadable output manifest {}", manifest, ex);
+            return Map.of();
+        }
+    }
+
+    /**
+     * Returns every file the previous run recorded for {@code outputDir}, with its source fingerprint or
+     * {@code null}; a run that writes only metadata {@linkplain VirtualOutputTree#retain retains} them all.
+     */
+    public static Map<String, String> recordedSources(Path outputDir) {
+        Map<String, String> sources = new HashMap<>();
+        for (Map.Entry<String, Entry> recorded : readManifest(outputDir.toAbsolutePath().normalize()).entrySet()) {
+            sources.put(recorded.getKey(), recorded.getValue().source());
+        }
+        return sources;
+    }
+
+    /**
+     * Returns the source fingerprints the previous run recorded for the files in {@code outputDir} that are still
+     * as it wrote them (same size and modification time), by path.
+     */
+    public static Map<String, String> intactSources(Path outputDir) {
+        Path root = outputDir.toAbsolutePath().normalize();
+        Map<String, String> sources = new HashMap<>();
+        for (Map.Entry<String, Entry> recorded : readManifest(root).entrySet()) {
+            Entry entry = recorded.getValue();
+            if (entry.source() == null) {
+                continue;
+            }
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(root.resolve(recorded.getKey()), BasicFileAttributes.class);
+                if (attributes.isRegularFile() && attributes.size() == entry.size()
+                    && attributes.lastModifiedTime().toMillis() == entry.modified()) {
+                    sources.put(recorded.getKey(), entry.source());
+                }
+            } catch (IOException ex) {
+                // missing or unreadable: render it again
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * Returns whether {@code file} already holds {@code bytes}; {@code recorded} is its entry from the manifest.
+     */
+    static boolean isUnchanged(Path file, byte[] bytes, String hash, Entry recorded) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            return false;
+        }
+        if (!attributes.isRegularFile() || attributes.size() != bytes.length) {
+            return false;
+        }
+        if (recorded != null && recorded.sha256().equals(hash) && recorded.size() == attributes.size()
+            && recorded.modified() == attributes.lastModifiedTime().toMillis()) {
+            return true;
+        }
+        return Arrays.equals(Files.readAllBytes(file), bytes);
+    }
+
+    private void write(String key, byte[] bytes, Map<String, String> sources, Map<String, Entry> previous,
+                       Map<String, Entry> current, Set<String> written, Map<Path, Boolean> directories) throws IOException {
+        Path file = outputDir.resolve(key);
+        String hash = Hashing.sha256(bytes);
+        if (!isUnchanged(file, bytes, hash, previous.get(key))) {
+            try {
+                directories.computeIfAbsent(file.getParent(), dir -> {
+                    try {
+                        Files.createDirectories(dir);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    return Boolean.TRUE;
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            Files.write(file, bytes);
+            written.add(key);
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        current.put(key, new Entry(hash, attributes.size(), attributes.lastModifiedTime().toMillis(), sources.get(key)));
+    }
+
+    private void deleteEmptyParents(Path dir) throws IOException {
+        while (dir != null && dir.startsWith(outputDir) && !dir.equals(outputDir)) {
+            try {
+                Files.deleteIfExists(dir);
+            } catch (DirectoryNotEmptyException ex) {
+                return;
+            }
+            dir = dir.getParent();
+        }
+    }
+
+    /**
+     * A written file; {@code source} is the fingerprint it was rendered from, or {@code null}.
+     */
+    record Entry(String sha256, long size, long modified, String source) {}
+
+    record Manifest(Map<String, Entry> files) {}
+}
@@ -0,0 +1,16 @@
+package ai.migrator.generation;
+
+import java.io.IOException;
+
+/**
+ * Destination of a generated project: writes a {@link VirtualOutputTree} in one pass.
+ */
+public interface OutputSink {
+
+    Stats flush(VirtualOutputTree tree) throws IOException;
+
+    /**
+     * Files written, files left as they were, and files removed because the project no longer produces them.
+     */
+    record Stats(int written, int unchanged, int deleted) {}
+}
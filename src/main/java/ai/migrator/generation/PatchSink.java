@@ -0,0 +1,102 @@
+package ai.migrator.generation;
+
+import ai.migrator.util.Hashing;
+import ai.migrator.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Writes only what differs from the project currently in the output directory: added and changed files go to the
+ * patch directory under their relative paths, and {@code patch.json} lists the added, changed and deleted paths.
+ * Applying the patch means copying the files over the output directory and removing the deleted paths. The output
+ * directory itself is not touched.
+ */
+public class PatchSink implements OutputSink {
+
+    private static final Logger log = LoggerFactory.getLogger(PatchSink.class);
+    private static final String PATCH_FILE = "patch.json";
+
+    private final Path outputDir;
+    private final Path patchDir;
+
+    public PatchSink(Path outputDir, Path patchDir) {
+        this.outputDir = outputDir.toAbsolutePath().normalize();
+        this.patchDir = patchDir.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public Stats flush(VirtualOutputTree tree) throws IOException {
+        clearPatchDir();
+        Map<String, FilesystemSink.Entry> previous = FilesystemSink.readManifest(outputDir);
+        Map<String, byte[]> files = tree.files();
+        Set<String> retained = tree.retained();
+
+        List<String> added = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        // retained files are the ones the previous run wrote and nothing changed since
+        int unchanged = retained.size();
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            Path existing = outputDir.resolve(file.getKey());
+            byte[] bytes = file.getValue();
+            if (FilesystemSink.isUnchanged(existing, bytes, Hashing.sha256(bytes), previous.get(file.getKey()))) {
+                unchanged++;
+                continue;
+            }
+            (Files.exists(existing) ? changed : added).add(file.getKey());
+            Path target = patchDir.resolve(file.getKey());
+            Files.createDirectories(target.getParent());
+            Files.write(target, bytes);
+        }
+        for (String key : previous.keySet()) {
+            if (!files.containsKey(key) && !retained.contains(key) && Files.exists(outputDir.resolve(key))) {
+                deleted.add(key);
+            }
+        }
+        JsonUtils.writeJson(patchDir.resolve(PATCH_FILE), new Patch(outputDir.toString(), added, changed, deleted));
+
+        log.info("Patch for {} written to {}: {} added, {} changed, {} deleted, {} unchanged",
+            outputDir, patchDir, added.size(), changed.size(), deleted.size(), unchanged);
+        return new Stats(added.size() + changed.size(), unchanged, deleted.size());
+    }
+
+    /**
+     * Empties a patch directory left by an earlier run; any other non-empty directory is refused.
+     */
+    private void clearPatchDir() throws IOException {
+        if (patchDir.startsWith(outputDir) || outputDir.startsWith(patchDir)) {
+            throw new IllegalStateException("Patch directory " + patchDir + " must be outside the output directory " + outputDir);
+        }
+        if (Files.isDirectory(patchDir)) {
+            boolean empty;
+            try (Stream<Path> entries = Files.list(patchDir)) {
+                empty = entries.findAny().isEmpty();
+            }
+            if (!empty) {
+                if (!Files.exists(patchDir.resolve(PATCH_FILE))) {
+                    throw new IllegalStateException("Patch directory " + patchDir + " is not empty and holds no earlier patch");
+                }
+                try (Stream<Path> entries = Files.walk(patchDir)) {
+                    for (Path entry : entries.sorted(Comparator.reverseOrder()).toList()) {
+                        if (!entry.equals(patchDir)) {
+                            Files.delete(entry);
+                        }
+                    }
+                }
+            }
+        }
+        Files.createDirectories(patchDir);
+    }
+
+    record Patch(String base, List<String> added, List<String> changed, List<String> deleted) {}
+}
@@ -0,0 +1,370 @@
+package ai.migrator.generation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A logic-less template compiled once into a node tree, in a subset of Mustache without HTML escaping:
+ * <ul>
+ *   <li>{@code {{name}}} inserts a value, {@code {{.}}} the current section item;</li>
+ *   <li>{@code {{#name}}...{{/name}}} renders its body once per item of a collection, or once for any other
+ *       non-empty value, which becomes the current item; names not found on the item are looked up in the
+ *       enclosing scopes;</li>
+ *   <li>{@code {{^name}}...{{/name}}} renders its body when the value is missing, {@code false}, empty or an
+ *       empty collection;</li>
+ *   <li>{@code {{! comment}}} is dropped.</li>
+ * </ul>
+ * Section and comment tags alone on a line remove the whole line, so templates can keep one tag per line without
+ * leaving blank lines in the output. Values are maps from name to value, usually built with {@link #scope}, or
+ * {@link View}s that answer names themselves; anything else only answers {@code {{.}}}.
+ * <p>
+ * Templates render to UTF-8 bytes, the form the output tree keeps: static text is encoded once at compile time
+ * and values are encoded as they are written, so no intermediate string of the whole file is built.
+ */
+public final class Template {
+
+    private static final int INITIAL_BUFFER = 8 * 1024;
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+    private static final String CURRENT = ".";
+    private static final ThreadLocal<Output> BUFFER = ThreadLocal.withInitial(() -> new Output(INITIAL_BUFFER));
+
+    private final String name;
+    private final Node[] nodes;
+
+    private Template(String name, Node[] nodes) {
+        this.name = name;
+        this.nodes = nodes;
+    }
+
+    public static Template compile(String name, String source) {
+        Parser parser = new Parser(name, source);
+        Node[] nodes = parser.parse(null);
+        return new Template(name, nodes);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Renders into this thread's reusable buffer and returns the UTF-8 bytes, the only copy made of the output.
+     */
+    public byte[] render(Object model) {
+        Output buffer = BUFFER.get();
+        buffer.reset();
+        renderTo(buffer, model);
+        byte[] result = buffer.toByteArray();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.set(new Output(INITIAL_BUFFER));
+        }
+        return result;
+    }
+
+    /**
+     * Renders into {@code out}, after what it already holds.
+     */
+    public void renderTo(Output out, Object model) {
+        Object[] scopes = new Object[8];
+        scopes[0] = model;
+        render(nodes, out, scopes, 1);
+    }
+
+    private static void render(Node[] nodes, Output out, Object[] scopes, int depth) {
+        for (Node node : nodes) {
+            node.render(out, scopes, depth);
+        }
+    }
+
+    /**
+     * A read-only scope from alternating names and values. Values may be {@code null}, which renders as missing.
+     * Lookups scan the few names linearly, which beats hashing for the handful of names a template asks for.
+     */
+    public static Map<String, Object> scope(Object... namesAndValues) {
+        return new Scope(namesAndValues);
+    }
+
+    private static Object lookup(String name, Object[] scopes, int depth) {
+        // the parser interns names, so "." is always this constant
+        if (name == CURRENT) {
+            return scopes[depth - 1];
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            Object scope = scopes[i];
+            if (scope instanceof View view) {
+                Object value = view.value(name);
+                if (value != View.ABSENT) {
+                    return value;
+                }
+            } else if (scope instanceof Map<?, ?> map) {
+                Object value = map.get(name);
+                if (value != null || map.containsKey(name)) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTruthy(Object value) {
+        if (value instanceof Boolean flag) {
+            return flag;
+        }
+        if (value instanceof CharSequence text) {
+            return !text.isEmpty();
+        }
+        if (value instanceof Collection<?> items) {
+            return !items.isEmpty();
+        }
+        return value != null;
+    }
+
+    /**
+     * A value that answers the names a template asks for itself, typically a record switching on the name. Views
+     * suit items rendered in bulk, such as the routes of a router, where a {@link #scope} per item would cost an
+     * array and a map.
+     */
+    public interface View {
+
+        /** Returned by {@link #value} for a name the view does not have; it is then looked up in enclosing scopes. */
+        Object ABSENT = new Object();
+
+        Object value(String name);
+    }
+
+    /**
+     * A growable buffer of UTF-8 bytes that templates render into. Not thread-safe.
+     */
+    public static final class Output {
+        private byte[] bytes;
+        private int size;
+
+        public Output() {
+            this(INITIAL_BUFFER);
+        }
+
+        public Output(int capacity) {
+            this.bytes = new byte[Math.max(16, capacity)];
+        }
+
+        public void write(byte[] data) {
+            ensure(data.length);
+            System.arraycopy(data, 0, bytes, size, data.length);
+            size += data.length;
+        }
+
+        public void write(String text) {
+            int length = text.length();
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    // rare in generated code: encode the rest as a whole
+                    write(text.substring(i).getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                bytes[size++] = (byte) c;
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public void reset() {
+            size = 0;
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        int capacity() {
+            return bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Scope extends AbstractMap<String, Object> implements View {
+        private final Object[] namesAndValues;
+
+        Scope(Object[] namesAndValues) {
+            if (namesAndValues.length % 2 != 0) {
+                throw new IllegalStateException("Scope needs name and value pairs");
+            }
+            this.namesAndValues = namesAndValues;
+        }
+
+        @Override
+        public Object value(String name) {
+            return find(name);
+        }
+
+        Object find(Object name) {
+            // template names are interned and scope names are usually literals, so identity nearly always decides
+            for (int i = 0; i < namesAndValues.length; i += 2) {
+                if (namesAndValues[i] == name) {
+                    return namesAndValues[i + 1];
+                }
+            }
+            for (int i = 0; i < namesAndValues.length; i += 2) {
+                if (namesAndValues[i].equals(name)) {
+                    return namesAndValues[i + 1];
+                }
+            }
+            return ABSENT;
+        }
+
+        @Override
+        public Object get(Object name) {
+            Object value = find(name);
+            return value == ABSENT ? null : value;
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            return find(name) != ABSENT;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Map<String, Object> entries = new LinkedHashMap<>();
+            for (int i = 0; i < namesAndValues.length; i += 2) {
+                entries.put((String) namesAndValues[i], namesAndValues[i + 1]);
+            }
+            return entries.entrySet();
+        }
+    }
+
+    private sealed interface Node permits Text, Variable, Section {
+        void render(Output out, Object[] scopes, int depth);
+    }
+
+    /** Static text, encoded once when the template is compiled. */
+    private record Text(byte[] utf8) implements Node {
+        @Override
+        public void render(Output out, Object[] scopes, int depth) {
+            out.write(utf8);
+        }
+    }
+
+    private record Variable(String name) implements Node {
+        @Override
+        public void render(Output out, Object[] scopes, int depth) {
+            Object value = lookup(name, scopes, depth);
+            if (value != null) {
+                out.write(value.toString());
+            }
+        }
+    }
+
+    private record Section(String name, boolean inverted, Node[] body) implements Node {
+        @Override
+        public void render(Output out, Object[] scopes, int depth) {
+            Object value = lookup(name, scopes, depth);
+            if (inverted) {
+                if (!isTruthy(value)) {
+                    Template.render(body, out, scopes, depth);
+                }
+                return;
+            }
+            if (!isTruthy(value)) {
+                return;
+            }
+            Object[] nested = depth < scopes.length ? scopes : Arrays.copyOf(scopes, scopes.length * 2);
+            if (value instanceof Collection<?> items) {
+                for (Object item : items) {
+                    nested[depth] = item;
+                    Template.render(body, out, nested, depth + 1);
+                }
+            } else {
+                nested[depth] = value;
+                Template.render(body, out, nested, depth + 1);
+            }
+            nested[depth] = null;
+        }
+    }
+
+    private static final class Parser {
+        private final String name;
+        private final String source;
+        private int pos;
+
+        Parser(String name, String source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        /**
+         * Parses up to the closing tag of {@code section}, or to the end of the source for the top level.
+         */
+        Node[] parse(String section) {
+            List<Node> nodes = new ArrayList<>();
+            while (true) {
+                int start = source.indexOf("{{", pos);
+                if (start == -1) {
+                    if (section != null) {
+                        throw new IllegalStateException("Template " + name + ": unclosed section {{#" + section + "}}");
+                    }
+                    addText(nodes, source.substring(pos));
+                    return nodes.toArray(Node[]::new);
+                }
+                int end = source.indexOf("}}", start + 2);
+                if (end == -1) {
+                    throw new IllegalStateException("Template " + name + ": unterminated tag at offset " + start);
+                }
+                String tag = source.substring(start + 2, end).trim();
+                char kind = tag.isEmpty() ? ' ' : tag.charAt(0);
+                if (kind != '#' && kind != '^' && kind != '/' && kind != '!') {
+                    addText(nodes, source.substring(pos, start));
+                    // interned, so map lookups against the literal keys of a view match on identity
+                    nodes.add(new Variable(tag.intern()));
+                    pos = end + 2;
+                    continue;
+                }
+
+                int tagEnd = end + 2;
+                int lineStart = source.lastIndexOf('\n', start - 1) + 1;
+                int lineEnd = source.indexOf('\n', tagEnd);
+                int afterLine = lineEnd == -1 ? source.length() : lineEnd + 1;
+                boolean standalone = lineStart >= pos
+                    && source.substring(lineStart, start).isBlank()
+                    && source.substring(tagEnd, lineEnd == -1 ? source.length() : lineEnd).isBlank();
+                addText(nodes, source.substring(pos, standalone ? lineStart : start));
+                pos = standalone ? afterLine : tagEnd;
+
+                String tagName = tag.substring(1).trim().intern();
+                switch (kind) {
+                    case '#', '^' -> nodes.add(new Section(tagName, kind == '^', parse(tagName)));
+                    case '/' -> {
+                        if (!tagName.equals(section)) {
+                            throw new IllegalStateException("Template " + name + ": unexpected {{/" + tagName + "}}"
+                                + (section == null ? "" : ", expected {{/" + section + "}}"));
+                        }
+                        return nodes.toArray(Node[]::new);
+                    }
+                    default -> {
+                        // comment
+                    }
+                }
+            }
+        }
+
+        private static void addText(List<Node> nodes, String text) {
+            if (!text.isEmpty()) {
+                nodes.add(new Text(text.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ai.migrator.generation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The generated project held in memory: file contents by {@code /}-separated path relative to the output root,
+ * sorted by path. Directories are implied by the paths. Putting a path twice keeps the later content, as writing
+ * the file twice would. An {@link OutputSink} flushes the tree in one pass.
+ * <p>
+ * A file can be put with the fingerprint of what it is rendered from. When the tree is created with the sources
+ * of the files the previous run left intact in the output directory, a file whose source is unchanged is
+ * {@linkplain #retain retained} instead: it keeps its content on disk and is not rendered again.
+ */
+public class VirtualOutputTree {
+
+    private final Map<String, byte[]> files = new TreeMap<>();
+    private final Set<String> retained = new TreeSet<>();
+    private final Map<String, String> sources = new HashMap<>();
+    private final Map<String, String> previousSources;
+
+    public VirtualOutputTree() {
+        this(Map.of());
+    }
+
+    /**
+     * @param previousSources source fingerprints by path of the files the previous run wrote and nothing changed
+     *                        since
+     */
+    public VirtualOutputTree(Map<String, String> previousSources) {
+        this.previousSources = previousSources;
+    }
+
+    public void put(String path, String content) {
+        put(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public synchronized void put(String path, byte[] content) {
+        put(path, content, null);
+    }
+
+    public void put(String path, String content, String source) {
+        put(path, content.getBytes(StandardCharsets.UTF_8), source);
+    }
+
+    public synchronized void put(String path, byte[] content, String source) {
+        String key = normalize(path);
+        files.put(key, content);
+        retained.remove(key);
+        if (source == null) {
+            sources.remove(key);
+        } else {
+            sources.put(key, source);
+        }
+    }
+
+    /**
+     * Returns whether the file the previous run wrote at {@code path} was rendered from {@code source} and can be
+     * {@linkplain #retain retained}.
+     */
+    public boolean isCurrent(String path, String source) {
+        return source != null && source.equals(previousSources.get(normalize(path)));
+    }
+
+    /**
+     * Keeps the file the previous run wrote at {@code path}; only valid if {@link #isCurrent} holds.
+     */
+    public synchronized void retain(String path, String source) {
+        String key = normalize(path);
+        files.remove(key);
+        retained.add(key);
+        sources.put(key, source);
+    }
+
+    public synchronized Map<String, byte[]> files() {
+        return new TreeMap<>(files);
+    }
+
+    /**
+     * Paths of the files kept from the previous run, which have no content in the tree.
+     */
+    public synchronized Set<String> retained() {
+        return new TreeSet<>(retained);
+    }
+
+    /**
+     * Source fingerprints by path, for the files that were put or retained with one.
+     */
+    public synchronized Map<String, String> sources() {
+        return new HashMap<>(sources);
+    }
+
+    public synchronized int size() {
+        return files.size() + retained.size();
+    }
+
+    public static String path(String dir, String name) {
+        return dir.isEmpty() ? name : dir + "/" + name;
+    }
+
+    private static String normalize(String path) {
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        if (normalized.isEmpty() || normalized.startsWith("../") || normalized.contains("/../")) {
+            throw new IllegalStateException("Invalid output path: " + path);
+        }
+        return normalized;
+    }
+}
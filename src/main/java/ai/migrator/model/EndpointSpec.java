@@ -17,7 +17,8 @@ public record EndpointSpec(
     List<ParameterSpec> queryParams,
     List<ParameterSpec> pathParams,
     List<ParameterSpec> headerParams,
-    List<String> controllerServices
+    List<String> controllerServices,
+    List<String> customAnnotations
 ) {
     public static Builder builder() {
         return new Builder();
@@ -38,6 +39,7 @@ public record EndpointSpec(
         private List<ParameterSpec> pathParams = new ArrayList<>();
         private List<ParameterSpec> headerParams = new ArrayList<>();
         private List<String> controllerServices = new ArrayList<>();
+        private List<String> customAnnotations = new ArrayList<>();
 
         public Builder id(String id) {
             this.id = id;
@@ -109,10 +111,15 @@ public record EndpointSpec(
             return this;
         }
 
+        public Builder customAnnotations(List<String> customAnnotations) {
+            this.customAnnotations = customAnnotations;
+            return this;
+        }
+
         public EndpointSpec build() {
             return new EndpointSpec(id, controllerClass, controllerPath, methodName, methodPath,
                 httpMethod, path, statusCode, requestBody, responseBody, queryParams, pathParams,
-                headerParams, controllerServices);
+                headerParams, controllerServices, customAnnotations);
         }
     }
 }
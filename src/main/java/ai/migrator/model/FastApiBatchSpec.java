@@ -0,0 +1,8 @@
+package ai.migrator.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.Map;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record FastApiBatchSpec(Map<String, FastApiSpec> modules) {}
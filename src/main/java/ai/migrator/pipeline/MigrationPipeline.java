@@ -5,19 +5,36 @@ import ai.migrator.analysis.ProjectLayout;
 import ai.migrator.analysis.SpringBytecodeAnalyzer;
 import ai.migrator.analysis.SpringSourceAnalyzer;
 import ai.migrator.config.MigrationProperties;
+import ai.migrator.config.StdoutRedirect;
+import ai.migrator.generation.ArchiveSink;
 import ai.migrator.generation.FastApiGenerator;
+import ai.migrator.generation.FilesystemSink;
+import ai.migrator.generation.PatchSink;
+import ai.migrator.generation.VirtualOutputTree;
 import ai.migrator.model.FastApiSpec;
 import ai.migrator.model.MigrationSpec;
 import ai.migrator.transform.AiTransformService;
+import ai.migrator.transform.ChunkListener;
 import ai.migrator.transform.DeterministicTransformService;
+import ai.migrator.transform.HybridTransformService;
+import ai.migrator.transform.LatencyHistory;
+import ai.migrator.transform.MigrationDeadline;
+import ai.migrator.transform.ProgressiveSpecWriter;
+import ai.migrator.transform.SpecFingerprints;
+import ai.migrator.transform.TokenUsageRecorder;
+import ai.migrator.util.DataFormat;
+import ai.migrator.util.Hashing;
 import ai.migrator.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -29,22 +46,43 @@ public class MigrationPipeline {
     private final SpringBytecodeAnalyzer bytecodeAnalyzer;
     private final AiTransformService aiTransformService;
     private final DeterministicTransformService deterministicTransformService;
+    private final HybridTransformService hybridTransformService;
+    private final MigrationDeadline deadline;
+    private final TokenUsageRecorder usageRecorder;
+    private final LatencyHistory latencyHistory;
+    private final MigrationPlanner planner;
     private final FastApiGenerator generator;
+    private final SpecFingerprints fingerprints;
 
     public MigrationPipeline(SpringSourceAnalyzer sourceAnalyzer,
                              SpringBytecodeAnalyzer bytecodeAnalyzer,
                              AiTransformService aiTransformService,
                              DeterministicTransformService deterministicTransformService,
-                             FastApiGenerator generator) {
+                             HybridTransformService hybridTransformService,
+                             MigrationDeadline deadline,
+                             TokenUsageRecorder usageRecorder,
+                             LatencyHistory latencyHistory,
+                             MigrationPlanner planner,
+                             FastApiGenerator generator,
+                             SpecFingerprints fingerprints) {
         this.sourceAnalyzer = sourceAnalyzer;
         this.bytecodeAnalyzer = bytecodeAnalyzer;
         this.aiTransformService = aiTransformService;
         this.deterministicTransformService = deterministicTransformService;
+        this.hybridTransformService = hybridTransformService;
+        this.deadline = deadline;
+        this.usageRecorder = usageRecorder;
+        this.latencyHistory = latencyHistory;
+        this.planner = planner;
         this.generator = generator;
+        this.fingerprints = fingerprints;
     }
 
     public void run(MigrationProperties properties) {
         try {
+            deadline.start(properties.getTimeBudget(), properties.getCacheDir());
+            usageRecorder.reset();
+            latencyHistory.load(properties.getCacheDir());
             boolean useSource = properties.getMode() == MigrationProperties.Mode.SOURCE
                 || properties.getMode() == MigrationProperties.Mode.AUTO;
             boolean useBytecode = properties.getMode() == MigrationProperties.Mode.BYTECODE
@@ -60,6 +98,7 @@ public class MigrationPipeline {
             log.info("Detected {} module(s)", modules.size());
 
             List<MigrationSpec> moduleSpecs = new ArrayList<>();
+            List<AnalysisResult> analyses = new ArrayList<>();
 
             for (ProjectLayout layout : modules) {
                 AnalysisResult analysis = new AnalysisResult();
@@ -74,26 +113,154 @@ public class MigrationPipeline {
                     analysis.merge(bytecodeAnalyzer.analyze(layout));
                 }
 
-                MigrationSpec spec = MigrationSpec.from(layout, analysis);
-
-                FastApiSpec fastApiSpec = properties.isUseAi()
-                    ? aiTransformService.transform(spec, properties.getMaxChunkSize(), properties.getCacheDir())
-                    : deterministicTransformService.transform(spec);
-
-                generator.generateModule(properties.getOutput(), spec, multiModule);
-                moduleSpecs.add(spec);
+                analyses.add(analysis);
+                moduleSpecs.add(MigrationSpec.from(layout, analysis));
+            }
 
-                Path metaDir = properties.getOutput().resolve(".migrator").resolve(spec.moduleName());
-                Files.createDirectories(metaDir);
-                JsonUtils.writeJson(metaDir.resolve("analysis.json"), analysis);
-                JsonUtils.writeJson(metaDir.resolve("fastapi-spec.json"), fastApiSpec);
+            if (properties.isPlan()) {
+                MigrationPlanner.MigrationPlan plan = planner.plan(moduleSpecs, properties);
+                planner.log(plan);
+                // the plan goes through the sink like any output; the project already there is kept as it is
+                VirtualOutputTree tree = new VirtualOutputTree();
+                if (properties.getSink() == MigrationProperties.Sink.FILESYSTEM
+                    || properties.getSink() == MigrationProperties.Sink.PATCH) {
+                    FilesystemSink.recordedSources(properties.getOutput()).forEach(tree::retain);
+                }
+                tree.put(".migrator/plan.json", JsonUtils.toBytes(plan, DataFormat.JSON));
+                flush(tree, properties);
+                log.info("Plan written to .migrator/plan.json; nothing was migrated");
+                return;
             }
 
-            generator.generateRoot(properties.getOutput(), moduleSpecs, multiModule);
+            if (properties.isProgressive() && properties.getSink() != MigrationProperties.Sink.FILESYSTEM) {
+                log.warn("Progressive output needs the FILESYSTEM sink; writing the {} output once at the end",
+                    properties.getSink());
+            }
+            if (properties.isUseAi() && properties.isProgressive() && properties.getSink() == MigrationProperties.Sink.FILESYSTEM) {
+                runProgressive(properties, moduleSpecs, analyses, multiModule);
+            } else {
+                List<FastApiSpec> fastApiSpecs = transform(moduleSpecs, properties, null);
+                if (properties.isUseAi()) {
+                    deadline.finish(properties.getCacheDir());
+                    latencyHistory.save(properties.getCacheDir());
+                }
+                writeOutput(properties, moduleSpecs, analyses, fastApiSpecs, multiModule, true);
+            }
 
             log.info("Migration completed. Output at {}", properties.getOutput());
         } catch (Exception ex) {
             log.error("Migration failed", ex);
         }
     }
+
+    /**
+     * Writes the complete project from the deterministic transform first, then runs the LLM transform and keeps
+     * each module's {@code fastapi-spec} file up to date as chunk results arrive.
+     */
+    private void runProgressive(MigrationProperties properties, List<MigrationSpec> moduleSpecs,
+                                List<AnalysisResult> analyses, boolean multiModule) throws IOException {
+        List<FastApiSpec> baselines = new ArrayList<>();
+        for (MigrationSpec spec : moduleSpecs) {
+            baselines.add(deterministicTransformService.transform(spec));
+        }
+        writeOutput(properties, moduleSpecs, analyses, baselines, multiModule, false);
+        log.info("Deterministic project written to {}; refining with the LLM", properties.getOutput());
+
+        List<ChunkListener> listeners = new ArrayList<>();
+        for (int i = 0; i < moduleSpecs.size(); i++) {
+            String moduleName = moduleSpecs.get(i).moduleName();
+            listeners.add(new ProgressiveSpecWriter(moduleName, specFile(properties, moduleName),
+                properties.getMetadataFormat(), baselines.get(i)));
+        }
+        List<FastApiSpec> fastApiSpecs = transform(moduleSpecs, properties, listeners);
+        deadline.finish(properties.getCacheDir());
+        latencyHistory.save(properties.getCacheDir());
+        // the final specs and the usage reports go through the sink, so the manifest records what is on disk
+        writeOutput(properties, moduleSpecs, analyses, fastApiSpecs, multiModule, true);
+    }
+
+    private void writeOutput(MigrationProperties properties, List<MigrationSpec> moduleSpecs,
+                             List<AnalysisResult> analyses, List<FastApiSpec> fastApiSpecs,
+                             boolean multiModule, boolean withUsage) throws IOException {
+        // the filesystem and patch sinks compare with the output directory, so files still current there are kept
+        VirtualOutputTree tree = switch (properties.getSink()) {
+            case FILESYSTEM, PATCH -> new VirtualOutputTree(FilesystemSink.intactSources(properties.getOutput()));
+            case ZIP, TAR -> new VirtualOutputTree();
+        };
+        for (int i = 0; i < moduleSpecs.size(); i++) {
+            MigrationSpec spec = moduleSpecs.get(i);
+            generator.generateModule(tree, spec, multiModule);
+
+            String metaDir = ".migrator/" + spec.moduleName();
+            DataFormat format = properties.getMetadataFormat();
+            String analysisFile = metaDir + "/" + format.fileName("analysis");
+            String analysisSource = Hashing.newSha256()
+                .put(format.name()).put('\u0000').put(fingerprints.module(spec))
+                .hex();
+            if (tree.isCurrent(analysisFile, analysisSource)) {
+                tree.retain(analysisFile, analysisSource);
+            } else {
+                tree.put(analysisFile, JsonUtils.toBytes(analyses.get(i), format), analysisSource);
+            }
+            tree.put(metaDir + "/" + format.fileName("fastapi-spec"), JsonUtils.toBytes(fastApiSpecs.get(i), format));
+        }
+
+        generator.generateRoot(tree, moduleSpecs, multiModule);
+        if (withUsage) {
+            usageRecorder.write(tree);
+        }
+        flush(tree, properties);
+    }
+
+    private void flush(VirtualOutputTree tree, MigrationProperties properties) throws IOException {
+        int threads = properties.getGeneratorThreads() > 0
+            ? properties.getGeneratorThreads()
+            : Runtime.getRuntime().availableProcessors();
+        switch (properties.getSink()) {
+            case FILESYSTEM -> new FilesystemSink(properties.getOutput(), threads).flush(tree);
+            case PATCH -> new PatchSink(properties.getOutput(), properties.getPatchDir()).flush(tree);
+            case ZIP, TAR -> {
+                ArchiveSink.Format format = properties.getSink() == MigrationProperties.Sink.ZIP
+                    ? ArchiveSink.Format.ZIP
+                    : ArchiveSink.Format.TAR;
+                if ("-".equals(properties.getArchive())) {
+                    new ArchiveSink(format, StdoutRedirect.stdout(), "stdout").flush(tree);
+                } else {
+                    Path archive = Path.of(properties.getArchive());
+                    if (archive.toAbsolutePath().getParent() != null) {
+                        Files.createDirectories(archive.toAbsolutePath().getParent());
+                    }
+                    try (OutputStream out = Files.newOutputStream(archive)) {
+                        new ArchiveSink(format, out, archive.toString()).flush(tree);
+                    }
+                }
+            }
+        }
+    }
+
+    private Path specFile(MigrationProperties properties, String moduleName) {
+        return properties.getOutput().resolve(".migrator").resolve(moduleName)
+            .resolve(properties.getMetadataFormat().fileName("fastapi-spec"));
+    }
+
+    private List<FastApiSpec> transform(List<MigrationSpec> specs, MigrationProperties properties,
+                                        List<ChunkListener> listeners) {
+        if (properties.isUseAi() && !properties.isHybrid() && properties.isBatchSmallModules() && listeners == null) {
+            return aiTransformService.transformBatch(specs, properties.getMaxChunkSize(), properties.getCacheDir());
+        }
+        if (!properties.isUseAi()) {
+            List<FastApiSpec> fastApiSpecs = new ArrayList<>();
+            for (MigrationSpec spec : specs) {
+                fastApiSpecs.add(deterministicTransformService.transform(spec));
+            }
+            return fastApiSpecs;
+        }
+        // all modules go to the transform service at once, which schedules their chunks as one queue
+        List<ChunkListener> chunkListeners = listeners != null
+            ? listeners
+            : Collections.nCopies(specs.size(), ChunkListener.NONE);
+        return properties.isHybrid()
+            ? hybridTransformService.transformAll(specs, properties.getMaxChunkSize(), properties.getCacheDir(), chunkListeners)
+            : aiTransformService.transformAll(specs, properties.getMaxChunkSize(), properties.getCacheDir(), chunkListeners);
+    }
 }
@@ -0,0 +1,148 @@
+package ai.migrator.pipeline;
+
+import ai.migrator.config.MigrationProperties;
+import ai.migrator.model.MigrationSpec;
+import ai.migrator.transform.AiTransformService;
+import ai.migrator.transform.HybridTransformService;
+import ai.migrator.transform.LatencyHistory;
+import ai.migrator.transform.ModelPool;
+import ai.migrator.transform.PlannedChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Dry run of the transform step: works out which chunks would go to the model, which are served from the cache,
+ * how many prompt tokens the requests carry and how long they would take at the configured concurrency. Times
+ * come from the latency per prompt token recorded by earlier runs; without that history they are left unknown.
+ * The model is never called.
+ */
+@Service
+public class MigrationPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(MigrationPlanner.class);
+
+    private final AiTransformService aiTransformService;
+    private final HybridTransformService hybridTransformService;
+    private final ModelPool modelPool;
+    private final LatencyHistory latencyHistory;
+
+    public MigrationPlanner(AiTransformService aiTransformService,
+                            HybridTransformService hybridTransformService,
+                            ModelPool modelPool,
+                            LatencyHistory latencyHistory) {
+        this.aiTransformService = aiTransformService;
+        this.hybridTransformService = hybridTransformService;
+        this.modelPool = modelPool;
+        this.latencyHistory = latencyHistory;
+    }
+
+    public MigrationPlan plan(List<MigrationSpec> specs, MigrationProperties properties) {
+        int concurrency = modelPool.totalConcurrency();
+        long nanosPerToken = latencyHistory.history().calls() > 0 ? latencyHistory.history().nanosPerToken() : -1;
+
+        List<ModulePlan> modules = new ArrayList<>();
+        List<Long> runLatencies = new ArrayList<>();
+        for (MigrationSpec spec : specs) {
+            MigrationSpec aiSpec = !properties.isUseAi() ? null
+                : properties.isHybrid() ? hybridTransformService.aiSpec(spec) : spec;
+            List<PlannedChunk> chunks = aiSpec == null || aiSpec.endpoints().isEmpty() && aiSpec.dtos().isEmpty()
+                ? List.of()
+                : aiTransformService.plan(aiSpec, properties.getMaxChunkSize(), properties.getCacheDir());
+
+            int llmCalls = 0;
+            int cacheHits = 0;
+            long promptTokens = 0;
+            List<Long> latencies = new ArrayList<>();
+            for (PlannedChunk chunk : chunks) {
+                if (chunk.cached()) {
+                    cacheHits++;
+                    continue;
+                }
+                llmCalls++;
+                promptTokens += chunk.promptTokens();
+                latencies.add(nanosPerToken < 0 ? 0 : nanosPerToken * chunk.promptTokens());
+            }
+            runLatencies.addAll(latencies);
+            // the module on its own, for reporting; the run's wall time schedules all modules' chunks together
+            long wallMillis = nanosPerToken < 0 && llmCalls > 0 ? -1 : makespan(latencies, concurrency) / 1_000_000;
+            int deterministicEndpoints = spec.endpoints().size() - (aiSpec == null ? 0 : aiSpec.endpoints().size());
+            modules.add(new ModulePlan(spec.moduleName(), spec.endpoints().size(), deterministicEndpoints,
+                chunks.size(), llmCalls, cacheHits, promptTokens, wallMillis));
+        }
+
+        int llmCalls = 0;
+        int cacheHits = 0;
+        long promptTokens = 0;
+        for (ModulePlan module : modules) {
+            llmCalls += module.llmCalls();
+            cacheHits += module.cacheHits();
+            promptTokens += module.promptTokens();
+        }
+        long wallMillis = nanosPerToken < 0 && llmCalls > 0 ? -1 : makespan(runLatencies, concurrency) / 1_000_000;
+        return new MigrationPlan(modules, llmCalls, cacheHits, promptTokens, concurrency,
+            latencyHistory.history().averageCallMillis(), wallMillis);
+    }
+
+    public void log(MigrationPlan plan) {
+        for (ModulePlan module : plan.modules()) {
+            log.info("Plan for module {}: {} endpoint(s), {} deterministic; {} chunk(s): {} LLM call(s), {} cache hit(s), ~{} prompt tokens, wall time on its own {}",
+                module.module(), module.endpoints(), module.deterministicEndpoints(), module.chunks(),
+                module.llmCalls(), module.cacheHits(), module.promptTokens(), formatMillis(module.wallMillis()));
+        }
+        log.info("Plan: {} LLM call(s), {} cache hit(s), ~{} prompt tokens, expected wall time {} at concurrency {}",
+            plan.llmCalls(), plan.cacheHits(), plan.promptTokens(), formatMillis(plan.wallMillis()), plan.concurrency());
+        if (plan.wallMillis() < 0) {
+            log.info("No latency history in the cache dir yet; run a migration once to enable wall time estimates");
+        }
+    }
+
+    /**
+     * Simulates the largest-first schedule of the transform: each call goes to the worker that frees up first.
+     * The transform runs the chunks of all modules as one queue, so the run is simulated as a whole.
+     */
+    private long makespan(List<Long> latencies, int concurrency) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        sorted.sort(Comparator.reverseOrder());
+        PriorityQueue<Long> workers = new PriorityQueue<>();
+        for (int i = 0; i < Math.max(1, Math.min(concurrency, sorted.size())); i++) {
+            workers.add(0L);
+        }
+        long makespan = 0;
+        for (long latency : sorted) {
+            long finish = workers.poll() + latency;
+            makespan = Math.max(makespan, finish);
+            workers.add(finish);
+        }
+        return makespan;
+    }
+
+    private String formatMillis(long millis) {
+        if (millis < 0) {
+            return "unknown";
+        }
+        return millis < 10_000 ? millis + " ms" : Math.round(millis / 1000d) + " s";
+    }
+
+    public record ModulePlan(String module,
+                             int endpoints,
+                             int deterministicEndpoints,
+                             int chunks,
+                             int llmCalls,
+                             int cacheHits,
+                             long promptTokens,
+                             long wallMillis) {}
+
+    public record MigrationPlan(List<ModulePlan> modules,
+                                int llmCalls,
+                                int cacheHits,
+                                long promptTokens,
+                                int concurrency,
+                                long averageCallMillis,
+                                long wallMillis) {}
+}
@@ -1,11 +1,15 @@
 package ai.migrator.pipeline;
 
 import ai.migrator.config.MigrationProperties;
+import ai.migrator.config.StdoutRedirect;
+import ai.migrator.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+
 @Component
 public class MigrationRunner implements CommandLineRunner {
 
@@ -21,6 +25,15 @@ public class MigrationRunner implements CommandLineRunner {
 
     @Override
     public void run(String... args) {
+        JsonUtils.configure(properties.isJsonAccelerator());
+        if (properties.getDump() != null) {
+            try {
+                JsonUtils.dumpAsJson(properties.getDump(), StdoutRedirect.stdout());
+            } catch (IOException | IllegalStateException ex) {
+                log.error("Could not dump {}", properties.getDump(), ex);
+            }
+            return;
+        }
         if (properties.getInput() == null || properties.getOutput() == null) {
             log.info("Missing migrator.input or migrator.output. Example:");
             log.info("--migrator.input=/path/to/spring --migrator.output=/path/to/out");
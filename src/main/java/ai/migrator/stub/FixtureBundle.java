@@ -0,0 +1,52 @@
+package ai.migrator.stub;
+
+import ai.migrator.util.Hashing;
+import ai.migrator.util.JsonUtils;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A directory of recorded chat completions, one {@code <key>.json} file per request. The key is a hash of the
+ * request's messages (role and content), so a fixture matches a replayed request regardless of model name,
+ * temperature or streaming.
+ */
+public class FixtureBundle {
+
+    private final Path dir;
+
+    public FixtureBundle(Path dir) {
+        this.dir = dir;
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    public static String key(JsonNode messages) {
+        Hashing.Hasher hasher = Hashing.newSha256();
+        if (messages != null) {
+            for (JsonNode message : messages) {
+                hasher.put(message.path("role").asText()).put('\n')
+                    .put(message.path("content").asText()).put('\n');
+            }
+        }
+        return hasher.hex();
+    }
+
+    public Fixture find(String key) throws IOException {
+        Path file = dir.resolve(key + ".json");
+        return Files.exists(file) ? JsonUtils.readJson(file, Fixture.class) : null;
+    }
+
+    public synchronized void save(Fixture fixture) throws IOException {
+        Files.createDirectories(dir);
+        JsonUtils.writeJson(dir.resolve(fixture.key() + ".json"), fixture);
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Fixture(String key, String model, String content, Integer promptTokens, Integer completionTokens) {}
+}
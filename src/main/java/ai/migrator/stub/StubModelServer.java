@@ -0,0 +1,306 @@
+package ai.migrator.stub;
+
+import ai.migrator.config.MigrationProperties;
+import ai.migrator.transform.PromptSizeReport;
+import ai.migrator.util.JsonUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded OpenAI-compatible chat completions endpoint for running the migrator without a model server.
+ * In {@code REPLAY} mode answers come from a {@link FixtureBundle}; in {@code RECORD} mode requests are forwarded
+ * to the upstream server and its answers are saved to the bundle. Either way the configured latency, token
+ * rate, context-limit errors and malformed JSON are injected, so chunking, concurrency and retry behaviour can
+ * be measured repeatably on a machine with no network.
+ */
+public class StubModelServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StubModelServer.class);
+    private static final int STREAM_PIECE_CHARS = 16;
+
+    private final MigrationProperties.Stub config;
+    private final FixtureBundle fixtures;
+    private final String upstream;
+    private final String upstreamApiKey;
+    private final Random random;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public StubModelServer(MigrationProperties.Stub config, String upstream, String upstreamApiKey) {
+        this.config = config;
+        this.fixtures = new FixtureBundle(config.getFixtures());
+        this.upstream = config.getUpstream() != null ? config.getUpstream() : upstream;
+        this.upstreamApiKey = upstreamApiKey;
+        this.random = new Random(config.getSeed());
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.getPort()), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.createContext("/chat/completions", this::handle);
+        server.start();
+        log.info("Stub model server ({}) listening on {} with fixtures in {}", config.getMode(), baseUrl(), fixtures.dir());
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.close();
+        server = null;
+        log.info("Stub model server served {} request(s); injected {} context-limit error(s) and {} malformed answer(s)",
+            requests.get(), injectedErrors.get(), malformed.get());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Only POST is supported", "invalid_request_error", null);
+                return;
+            }
+            long id = requests.incrementAndGet();
+            JsonNode request = JsonUtils.readJson(
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), JsonNode.class);
+            JsonNode messages = request.path("messages");
+            String key = FixtureBundle.key(messages);
+            int promptTokens = promptTokens(messages);
+
+            if (injectContextError(promptTokens)) {
+                injectedErrors.incrementAndGet();
+                int limit = config.getContextLimitTokens() > 0 ? config.getContextLimitTokens() : promptTokens - 1;
+                sendError(exchange, 400, "This model's maximum context length is " + limit
+                    + " tokens. However, your messages resulted in " + promptTokens + " tokens.",
+                    "invalid_request_error", "context_length_exceeded");
+                return;
+            }
+
+            FixtureBundle.Fixture fixture = config.getMode() == MigrationProperties.StubMode.RECORD
+                ? record(key, request, exchange.getRequestHeaders().getFirst("Authorization"))
+                : fixtures.find(key);
+            if (fixture == null) {
+                sendError(exchange, 500, "No recorded response for request " + key, "server_error", null);
+                return;
+            }
+
+            String content = fixture.content() == null ? "" : fixture.content();
+            if (fixture.promptTokens() != null) {
+                promptTokens = fixture.promptTokens();
+            }
+            int completionTokens = fixture.completionTokens() != null
+                ? fixture.completionTokens()
+                : PromptSizeReport.estimateTokens(content);
+            if (chance(config.getMalformedRate())) {
+                malformed.incrementAndGet();
+                content = content.substring(0, content.length() / 2);
+                completionTokens = PromptSizeReport.estimateTokens(content);
+            }
+            String model = request.path("model").asText(fixture.model());
+
+            sleep(config.getLatency().toMillis());
+            if (request.path("stream").asBoolean(false)) {
+                Map<String, Object> usage = request.path("stream_options").path("include_usage").asBoolean(false)
+                    ? usage(promptTokens, completionTokens)
+                    : null;
+                stream(exchange, id, model, content, usage);
+            } else {
+                sleep(generationMillis(completionTokens));
+                Map<String, Object> message = new LinkedHashMap<>();
+                message.put("role", "assistant");
+                message.put("content", content);
+                Map<String, Object> body = completion(id, model, "chat.completion");
+                body.put("choices", List.of(Map.of("index", 0, "message", message, "finish_reason", "stop")));
+                body.put("usage", usage(promptTokens, completionTokens));
+                send(exchange, 200, JsonUtils.toJson(body));
+            }
+        } catch (Exception ex) {
+            log.warn("Stub model server failed to handle request", ex);
+            sendError(exchange, 500, String.valueOf(ex.getMessage()), "server_error", null);
+        }
+    }
+
+    private FixtureBundle.Fixture record(String key, JsonNode request, String authorization)
+        throws IOException, InterruptedException {
+        if (upstream == null || upstream.isBlank()) {
+            throw new IllegalStateException("Recording needs migrator.stub.upstream or spring.ai.openai.base-url");
+        }
+        ObjectNode forwarded = request.deepCopy();
+        forwarded.put("stream", false);
+        forwarded.remove("stream_options");
+        String url = upstream.replaceAll("/+$", "") + "/v1/chat/completions";
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(JsonUtils.toJson(forwarded)));
+        if (authorization != null) {
+            builder.header("Authorization", authorization);
+        } else if (upstreamApiKey != null && !upstreamApiKey.isBlank()) {
+            builder.header("Authorization", "Bearer " + upstreamApiKey);
+        }
+        HttpResponse<String> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Upstream returned " + response.statusCode() + ": " + response.body());
+        }
+        JsonNode answer = JsonUtils.readJson(response.body(), JsonNode.class);
+        JsonNode usage = answer.path("usage");
+        FixtureBundle.Fixture fixture = new FixtureBundle.Fixture(
+            key,
+            answer.path("model").asText(request.path("model").asText()),
+            answer.path("choices").path(0).path("message").path("content").asText(""),
+            usage.has("prompt_tokens") ? usage.get("prompt_tokens").asInt() : null,
+            usage.has("completion_tokens") ? usage.get("completion_tokens").asInt() : null
+        );
+        fixtures.save(fixture);
+        return fixture;
+    }
+
+    /**
+     * Streams {@code content} in pieces; with {@code usage}, as asked for by {@code stream_options.include_usage},
+     * a last chunk without choices carries it, as OpenAI sends it.
+     */
+    private void stream(HttpExchange exchange, long id, String model, String content, Map<String, Object> usage)
+        throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (int start = 0; start < content.length(); start += STREAM_PIECE_CHARS) {
+            String piece = content.substring(start, Math.min(content.length(), start + STREAM_PIECE_CHARS));
+            sleep(generationMillis(PromptSizeReport.estimateTokens(piece)));
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("role", "assistant");
+            delta.put("content", piece);
+            writeEvent(out, streamChunk(id, model, delta, null));
+        }
+        writeEvent(out, streamChunk(id, model, Map.of(), "stop"));
+        if (usage != null) {
+            Map<String, Object> body = completion(id, model, "chat.completion.chunk");
+            body.put("choices", List.of());
+            body.put("usage", usage);
+            writeEvent(out, JsonUtils.toJson(body));
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private Map<String, Object> usage(int promptTokens, int completionTokens) {
+        return Map.of("prompt_tokens", promptTokens, "completion_tokens", completionTokens,
+            "total_tokens", promptTokens + completionTokens);
+    }
+
+    private String streamChunk(long id, String model, Map<String, Object> delta, String finishReason) {
+        Map<String, Object> choice = new LinkedHashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        Map<String, Object> body = completion(id, model, "chat.completion.chunk");
+        body.put("choices", List.of(choice));
+        return JsonUtils.toJson(body);
+    }
+
+    private Map<String, Object> completion(long id, String model, String object) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", "stub-" + id);
+        body.put("object", object);
+        body.put("created", System.currentTimeMillis() / 1000);
+        body.put("model", model);
+        return body;
+    }
+
+    private void writeEvent(OutputStream out, String json) throws IOException {
+        out.write(("data: " + json + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message, String type, String code) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("message", message);
+        error.put("type", type);
+        error.put("code", code);
+        try {
+            send(exchange, status, JsonUtils.toJson(Map.of("error", error)));
+        } catch (IOException ex) {
+            log.debug("Could not send error response", ex);
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private int promptTokens(JsonNode messages) {
+        int tokens = 0;
+        for (JsonNode message : messages) {
+            tokens += PromptSizeReport.estimateTokens(message.path("content").asText());
+        }
+        return tokens;
+    }
+
+    private boolean injectContextError(int promptTokens) {
+        if (config.getContextLimitTokens() > 0 && promptTokens > config.getContextLimitTokens()) {
+            return true;
+        }
+        return chance(config.getContextErrorRate());
+    }
+
+    private boolean chance(double rate) {
+        if (rate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < rate;
+        }
+    }
+
+    private long generationMillis(int tokens) {
+        return config.getTokensPerSecond() > 0 ? tokens * 1000L / config.getTokensPerSecond() : 0;
+    }
+
+    private void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofMillis(millis));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,7 +4,39 @@ import ai.migrator.model.FastApiSpec;
 import ai.migrator.model.MigrationSpec;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public interface AiTransformService {
-    FastApiSpec transform(MigrationSpec spec, int maxChunkSize, Path cacheDir);
+    FastApiSpec transform(MigrationSpec spec, int maxChunkSize, Path cacheDir, ChunkListener listener);
+
+    default FastApiSpec transform(MigrationSpec spec, int maxChunkSize, Path cacheDir) {
+        return transform(spec, maxChunkSize, cacheDir, ChunkListener.NONE);
+    }
+
+    /**
+     * Transforms several modules, reporting the chunks of {@code specs.get(i)} to {@code listeners.get(i)}.
+     * Implementations may schedule the chunks of all modules together.
+     */
+    default List<FastApiSpec> transformAll(List<MigrationSpec> specs, int maxChunkSize, Path cacheDir,
+                                           List<ChunkListener> listeners) {
+        List<FastApiSpec> results = new ArrayList<>();
+        for (int i = 0; i < specs.size(); i++) {
+            results.add(transform(specs.get(i), maxChunkSize, cacheDir, listeners.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Lists the model requests {@link #transform} would make for {@code spec}, without calling the model.
+     */
+    List<PlannedChunk> plan(MigrationSpec spec, int maxChunkSize, Path cacheDir);
+
+    default List<FastApiSpec> transformBatch(List<MigrationSpec> specs, int maxChunkSize, Path cacheDir) {
+        List<FastApiSpec> results = new ArrayList<>();
+        for (MigrationSpec spec : specs) {
+            results.add(transform(spec, maxChunkSize, cacheDir));
+        }
+        return results;
+    }
 }
@@ -0,0 +1,16 @@
+package ai.migrator.transform;
+
+import ai.migrator.model.FastApiSpec;
+import ai.migrator.model.MigrationSpec;
+
+/**
+ * Receives the result of each chunk as soon as it is available. Chunks may complete concurrently and in any
+ * order, so implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface ChunkListener {
+
+    ChunkListener NONE = (chunk, result) -> {};
+
+    void onChunk(MigrationSpec chunk, FastApiSpec result);
+}
@@ -0,0 +1,212 @@
+package ai.migrator.transform;
+
+import ai.migrator.model.*;
+import ai.migrator.util.JsonUtils;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Token-lean prompt encoding of a {@link MigrationSpec}. Nulls, defaults and empty collections are dropped,
+ * package prefixes are stripped, keys are shortened and type names used more than once are moved into a
+ * shared {@code types} dictionary referenced by index. The legend lives in the compact user prompt template.
+ */
+public class CompactSpecEncoder {
+
+    private static final Pattern PACKAGE_PREFIX = Pattern.compile("\\b(?:[a-z_$][\\w$]*\\.)+");
+
+    public static String encode(MigrationSpec spec) {
+        List<String> types = types(spec);
+        return encode(spec, types, indexOf(types), true);
+    }
+
+    /**
+     * Encodes {@code spec} against the {@code types} dictionary of {@code dictionary}, without a table of its own:
+     * indexes point into the table written with {@code encode(dictionary)} and every other type name is written
+     * inline. Used to put a chunk's endpoints after a shared context block that carries the only dictionary.
+     */
+    public static String encode(MigrationSpec spec, MigrationSpec dictionary) {
+        return encode(spec, List.of(), indexOf(types(dictionary)), false);
+    }
+
+    private static String encode(MigrationSpec spec, List<String> types, Map<String, Integer> typeIndex,
+                                 boolean withTypes) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("module", spec.moduleName());
+        if (withTypes && !types.isEmpty()) {
+            root.put("types", types);
+        }
+
+        List<Object> endpoints = new ArrayList<>();
+        for (EndpointSpec endpoint : spec.endpoints()) {
+            endpoints.add(encodeEndpoint(endpoint, typeIndex));
+        }
+        putIfNotEmpty(root, "e", endpoints);
+
+        List<Object> dtos = new ArrayList<>();
+        for (DtoSpec dto : spec.dtos()) {
+            dtos.add(encodeDto(dto, typeIndex));
+        }
+        putIfNotEmpty(root, "d", dtos);
+
+        return JsonUtils.toJson(root);
+    }
+
+    private static List<String> types(MigrationSpec spec) {
+        Map<String, Integer> usage = new LinkedHashMap<>();
+        forEachType(spec, type -> usage.merge(typeName(type), 1, Integer::sum));
+        List<String> types = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : usage.entrySet()) {
+            if (entry.getValue() > 1) {
+                types.add(entry.getKey());
+            }
+        }
+        return types;
+    }
+
+    private static Map<String, Integer> indexOf(List<String> types) {
+        Map<String, Integer> typeIndex = new HashMap<>();
+        for (int i = 0; i < types.size(); i++) {
+            typeIndex.put(types.get(i), i);
+        }
+        return typeIndex;
+    }
+
+    private static Map<String, Object> encodeEndpoint(EndpointSpec endpoint, Map<String, Integer> typeIndex) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("m", endpoint.httpMethod());
+        node.put("p", endpoint.path());
+        node.put("fn", endpoint.methodName());
+        if (endpoint.statusCode() != null && endpoint.statusCode() != 200) {
+            node.put("s", endpoint.statusCode());
+        }
+        putType(node, "req", endpoint.requestBody(), typeIndex);
+        putType(node, "res", endpoint.responseBody(), typeIndex);
+        putIfNotEmpty(node, "q", encodeParams(endpoint.queryParams(), typeIndex));
+        putIfNotEmpty(node, "pp", encodeParams(endpoint.pathParams(), typeIndex));
+        putIfNotEmpty(node, "h", encodeParams(endpoint.headerParams(), typeIndex));
+        putIfNotEmpty(node, "ann", endpoint.customAnnotations());
+        return node;
+    }
+
+    private static List<Object> encodeParams(List<ParameterSpec> params, Map<String, Integer> typeIndex) {
+        List<Object> result = new ArrayList<>();
+        if (params == null) {
+            return result;
+        }
+        for (ParameterSpec param : params) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("n", param.name());
+            putType(node, "t", param.type(), typeIndex);
+            if (param.requiredEffective()) {
+                node.put("r", 1);
+            }
+            result.add(node);
+        }
+        return result;
+    }
+
+    private static Map<String, Object> encodeDto(DtoSpec dto, Map<String, Integer> typeIndex) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("n", dto.name());
+        List<Object> fields = new ArrayList<>();
+        for (FieldSpec field : dto.fields()) {
+            Map<String, Object> fieldNode = new LinkedHashMap<>();
+            fieldNode.put("n", field.name());
+            putType(fieldNode, "t", field.type(), typeIndex);
+            if (field.optional()) {
+                fieldNode.put("o", 1);
+            }
+            Map<String, Object> validation = encodeValidation(field.validation());
+            putIfNotEmpty(fieldNode, "v", validation);
+            if (field.jsonAlias() != null && !field.jsonAlias().isBlank()) {
+                fieldNode.put("a", field.jsonAlias());
+            }
+            fields.add(fieldNode);
+        }
+        putIfNotEmpty(node, "f", fields);
+        return node;
+    }
+
+    private static Map<String, Object> encodeValidation(ValidationSpec v) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        if (v == null) {
+            return node;
+        }
+        putIfNotNull(node, "minLength", v.minLength());
+        putIfNotNull(node, "maxLength", v.maxLength());
+        putIfNotNull(node, "min", v.min());
+        putIfNotNull(node, "max", v.max());
+        putIfNotNull(node, "gt", v.gt());
+        putIfNotNull(node, "ge", v.ge());
+        putIfNotNull(node, "lt", v.lt());
+        putIfNotNull(node, "le", v.le());
+        if (Boolean.TRUE.equals(v.notBlank())) {
+            node.put("notBlank", 1);
+        }
+        if (Boolean.TRUE.equals(v.notNull())) {
+            node.put("notNull", 1);
+        }
+        if (Boolean.TRUE.equals(v.email())) {
+            node.put("email", 1);
+        }
+        if (v.pattern() != null && !v.pattern().isBlank()) {
+            node.put("pattern", v.pattern());
+        }
+        return node;
+    }
+
+    private static void forEachType(MigrationSpec spec, Consumer<TypeRef> visitor) {
+        Consumer<TypeRef> nonNull = type -> {
+            if (type != null) {
+                visitor.accept(type);
+            }
+        };
+        for (EndpointSpec endpoint : spec.endpoints()) {
+            nonNull.accept(endpoint.requestBody());
+            nonNull.accept(endpoint.responseBody());
+            for (List<ParameterSpec> params : List.of(endpoint.queryParams(), endpoint.pathParams(), endpoint.headerParams())) {
+                params.forEach(p -> nonNull.accept(p.type()));
+            }
+        }
+        for (DtoSpec dto : spec.dtos()) {
+            dto.fields().forEach(f -> nonNull.accept(f.type()));
+        }
+    }
+
+    static String typeName(TypeRef type) {
+        String raw = type.name();
+        if (raw == null) {
+            raw = type.collection() ? type.collectionType() + "<" + type.elementType() + ">" : "Object";
+        }
+        return PACKAGE_PREFIX.matcher(raw).replaceAll("");
+    }
+
+    private static void putType(Map<String, Object> node, String key, TypeRef type, Map<String, Integer> typeIndex) {
+        if (type == null) {
+            return;
+        }
+        String name = typeName(type);
+        Integer index = typeIndex.get(name);
+        node.put(key, index != null ? index : name);
+    }
+
+    private static void putIfNotNull(Map<String, Object> node, String key, Object value) {
+        if (value != null) {
+            node.put(key, value);
+        }
+    }
+
+    private static void putIfNotEmpty(Map<String, Object> node, String key, Collection<?> value) {
+        if (value != null && !value.isEmpty()) {
+            node.put(key, value);
+        }
+    }
+
+    private static void putIfNotEmpty(Map<String, Object> node, String key, Map<?, ?> value) {
+        if (value != null && !value.isEmpty()) {
+            node.put(key, value);
+        }
+    }
+}
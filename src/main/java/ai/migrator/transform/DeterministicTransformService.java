@@ -9,6 +9,14 @@ import java.util.List;
 @Service
 public class DeterministicTransformService {
 
+    private final TypeMapper typeMapper;
+    private final NamingService naming;
+
+    public DeterministicTransformService(TypeMapper typeMapper, NamingService naming) {
+        this.typeMapper = typeMapper;
+        this.naming = naming;
+    }
+
     public FastApiSpec transform(MigrationSpec spec) {
         List<PydanticModel> models = new ArrayList<>();
         for (DtoSpec dto : spec.dtos()) {
@@ -22,7 +30,7 @@ public class DeterministicTransformService {
 
         List<FastApiRoute> routes = new ArrayList<>();
         for (EndpointSpec endpoint : spec.endpoints()) {
-            String functionName = toSnake(endpoint.methodName());
+            String functionName = naming.snake(endpoint.methodName());
             String requestModel = endpoint.requestBody() != null ? simpleName(endpoint.requestBody().name()) : null;
             String responseModel = endpoint.responseBody() != null ? simpleName(endpoint.responseBody().name()) : null;
             routes.add(new FastApiRoute(
@@ -42,45 +50,15 @@ public class DeterministicTransformService {
     }
 
     public String mapJavaType(TypeRef type) {
-        if (type == null) {
-            return "Any";
-        }
-        if (type.collection()) {
-            String inner = mapJavaName(type.elementType());
-            return "List[" + inner + "]";
-        }
-        return mapJavaName(type.name());
+        return typeMapper.mapJavaType(type);
     }
 
-    private String mapJavaName(String javaName) {
-        String name = simpleName(javaName);
-        return switch (name) {
-            case "String" -> "str";
-            case "Integer", "int" -> "int";
-            case "Long", "long" -> "int";
-            case "Double", "double", "Float", "float" -> "float";
-            case "Boolean", "boolean" -> "bool";
-            case "BigDecimal" -> "float";
-            case "Instant" -> "datetime";
-            case "LocalDate" -> "date";
-            default -> name;
-        };
+    public boolean isScalarType(String javaName) {
+        return typeMapper.isScalarType(javaName);
     }
 
     private String simpleName(String typeName) {
         int idx = typeName.lastIndexOf('.');
         return idx == -1 ? typeName : typeName.substring(idx + 1);
     }
-
-    private String toSnake(String name) {
-        StringBuilder sb = new StringBuilder();
-        for (char c : name.toCharArray()) {
-            if (Character.isUpperCase(c)) {
-                sb.append('_').append(Character.toLowerCase(c));
-            } else {
-                sb.append(c);
-            }
-        }
-        return sb.toString().replaceAll("__", "_");
-    }
 }
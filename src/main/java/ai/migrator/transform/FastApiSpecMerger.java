@@ -2,25 +2,154 @@ package ai.migrator.transform;
 
 import ai.migrator.model.FastApiRoute;
 import ai.migrator.model.FastApiSpec;
+import ai.migrator.model.ParameterSpec;
+import ai.migrator.model.PydanticField;
 import ai.migrator.model.PydanticModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
+/**
+ * Merges chunk results into one spec. Routes are indexed by method and path and models by name, so a route or
+ * model answered by several chunks appears once: a later route only fills attributes the first one left empty,
+ * and a later model adds the fields the first one lacks. Where two parts disagree the first one wins and the
+ * disagreement is reported as a {@link Conflict}. Parts can be added one at a time as they finish; each part
+ * costs time proportional to its own size.
+ */
 public class FastApiSpecMerger {
-    public static FastApiSpec merge(List<FastApiSpec> parts) {
-        Map<String, PydanticModel> models = new LinkedHashMap<>();
-        List<FastApiRoute> routes = new ArrayList<>();
 
+    private static final Logger log = LoggerFactory.getLogger(FastApiSpecMerger.class);
+
+    private final Map<String, FastApiRoute> routes = new LinkedHashMap<>();
+    private final Map<String, Map<String, PydanticField>> models = new LinkedHashMap<>();
+    private final List<Conflict> conflicts = new ArrayList<>();
+
+    public static FastApiSpec merge(List<FastApiSpec> parts) {
+        FastApiSpecMerger merger = new FastApiSpecMerger();
         for (FastApiSpec part : parts) {
+            merger.add(part);
+        }
+        for (Conflict conflict : merger.conflicts()) {
+            log.debug("Merge conflict: {}", conflict);
+        }
+        return merger.result();
+    }
+
+    public synchronized FastApiSpecMerger add(FastApiSpec part) {
+        if (part == null) {
+            return this;
+        }
+        if (part.models() != null) {
             for (PydanticModel model : part.models()) {
-                models.putIfAbsent(model.name(), model);
+                if (model != null && model.name() != null) {
+                    addModel(model);
+                }
+            }
+        }
+        if (part.routes() != null) {
+            for (FastApiRoute route : part.routes()) {
+                if (route != null && route.method() != null && route.path() != null) {
+                    addRoute(route);
+                }
+            }
+        }
+        return this;
+    }
+
+    public synchronized FastApiSpec result() {
+        List<PydanticModel> merged = new ArrayList<>(models.size());
+        for (Map.Entry<String, Map<String, PydanticField>> model : models.entrySet()) {
+            merged.add(new PydanticModel(model.getKey(), new ArrayList<>(model.getValue().values())));
+        }
+        return new FastApiSpec(merged, new ArrayList<>(routes.values()));
+    }
+
+    public synchronized List<Conflict> conflicts() {
+        return List.copyOf(conflicts);
+    }
+
+    private void addModel(PydanticModel model) {
+        Map<String, PydanticField> fields = models.computeIfAbsent(model.name(), name -> new LinkedHashMap<>());
+        if (model.fields() == null) {
+            return;
+        }
+        for (PydanticField field : model.fields()) {
+            if (field == null || field.name() == null) {
+                continue;
             }
-            routes.addAll(part.routes());
+            PydanticField existing = fields.putIfAbsent(field.name(), field);
+            if (existing != null && !existing.equals(field)) {
+                conflicts.add(new Conflict(Conflict.Kind.MODEL_FIELD, model.name() + "." + field.name(),
+                    describe(existing), describe(field)));
+            }
+        }
+    }
+
+    private void addRoute(FastApiRoute route) {
+        String key = FastApiSpecValidator.routeKey(route.method(), route.path());
+        FastApiRoute existing = routes.get(key);
+        if (existing == null) {
+            routes.put(key, route);
+        } else if (!existing.equals(route)) {
+            routes.put(key, mergeRoute(key, existing, route));
         }
+    }
+
+    private FastApiRoute mergeRoute(String key, FastApiRoute first, FastApiRoute later) {
+        return new FastApiRoute(
+            first.path(),
+            first.method(),
+            pick(key, "functionName", first.functionName(), later.functionName()),
+            pick(key, "requestModel", first.requestModel(), later.requestModel()),
+            pick(key, "responseModel", first.responseModel(), later.responseModel()),
+            pick(key, "statusCode", first.statusCode(), later.statusCode()),
+            pickParams(key, "queryParams", first.queryParams(), later.queryParams()),
+            pickParams(key, "pathParams", first.pathParams(), later.pathParams()),
+            pickParams(key, "headerParams", first.headerParams(), later.headerParams())
+        );
+    }
+
+    private <T> T pick(String key, String attribute, T first, T later) {
+        if (first == null) {
+            return later;
+        }
+        if (later != null && !Objects.equals(first, later)) {
+            conflicts.add(new Conflict(Conflict.Kind.ROUTE, key + " " + attribute, String.valueOf(first), String.valueOf(later)));
+        }
+        return first;
+    }
 
-        return new FastApiSpec(new ArrayList<>(models.values()), routes);
+    private List<ParameterSpec> pickParams(String key, String attribute, List<ParameterSpec> first, List<ParameterSpec> later) {
+        List<ParameterSpec> picked = pick(key, attribute, nullIfEmpty(first), nullIfEmpty(later));
+        return picked == null ? first : picked;
+    }
+
+    private static <T> List<T> nullIfEmpty(List<T> list) {
+        return list == null || list.isEmpty() ? null : list;
+    }
+
+    private static String describe(PydanticField field) {
+        String type = field.list() ? "List[" + field.type() + "]" : field.type();
+        return field.optional() ? "Optional[" + type + "]" : type;
+    }
+
+    /**
+     * A value two parts disagree on; {@code kept} is the one in the merged spec.
+     */
+    public record Conflict(Kind kind, String key, String kept, String dropped) {
+
+        public enum Kind {
+            ROUTE, MODEL_FIELD
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + key + ": kept " + kept + ", dropped " + dropped;
+        }
     }
 }
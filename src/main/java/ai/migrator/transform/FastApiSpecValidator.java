@@ -0,0 +1,150 @@
+package ai.migrator.transform;
+
+import ai.migrator.model.*;
+
+import java.util.*;
+
+/**
+ * Checks an LLM answer against the chunk it was produced for. Valid routes and models are kept; endpoints and
+ * DTOs without a valid counterpart are returned as a smaller {@link MigrationSpec} that can be re-requested.
+ */
+public class FastApiSpecValidator {
+
+    public static Result validate(MigrationSpec chunk, FastApiSpec answer) {
+        Map<String, FastApiRoute> routesByKey = new HashMap<>();
+        if (answer != null && answer.routes() != null) {
+            for (FastApiRoute route : answer.routes()) {
+                if (route != null && route.method() != null && route.path() != null) {
+                    routesByKey.putIfAbsent(routeKey(route.method(), route.path()), route);
+                }
+            }
+        }
+        Map<String, PydanticModel> modelsByName = new HashMap<>();
+        if (answer != null && answer.models() != null) {
+            for (PydanticModel model : answer.models()) {
+                if (model != null && model.name() != null) {
+                    modelsByName.putIfAbsent(model.name(), model);
+                }
+            }
+        }
+
+        List<FastApiRoute> validRoutes = new ArrayList<>();
+        List<EndpointSpec> missingEndpoints = new ArrayList<>();
+        for (EndpointSpec endpoint : chunk.endpoints()) {
+            FastApiRoute route = routesByKey.get(routeKey(endpoint.httpMethod(), endpoint.path()));
+            if (route != null && isValidRoute(route, endpoint)) {
+                validRoutes.add(route);
+            } else {
+                missingEndpoints.add(endpoint);
+            }
+        }
+
+        List<PydanticModel> validModels = new ArrayList<>();
+        List<DtoSpec> missingDtos = new ArrayList<>();
+        for (DtoSpec dto : chunk.dtos()) {
+            PydanticModel model = modelsByName.get(dto.name());
+            if (model != null && isValidModel(model, dto)) {
+                validModels.add(model);
+            } else {
+                missingDtos.add(dto);
+            }
+        }
+
+        MigrationSpec remaining = new MigrationSpec(
+            chunk.projectName(),
+            chunk.moduleName(),
+            missingEndpoints,
+            missingDtos,
+            List.of(),
+            List.of(),
+            chunk.metadata()
+        );
+        return new Result(new FastApiSpec(validModels, validRoutes), remaining);
+    }
+
+    private static boolean isValidRoute(FastApiRoute route, EndpointSpec endpoint) {
+        if (route.functionName() == null || route.functionName().isBlank()) {
+            return false;
+        }
+        if (!validParams(route.queryParams()) || !validParams(route.pathParams()) || !validParams(route.headerParams())) {
+            return false;
+        }
+        int expectedPathParams = endpoint.pathParams() == null ? 0 : endpoint.pathParams().size();
+        int actualPathParams = route.pathParams() == null ? 0 : route.pathParams().size();
+        return actualPathParams >= expectedPathParams;
+    }
+
+    private static boolean validParams(List<ParameterSpec> params) {
+        if (params == null) {
+            return true;
+        }
+        for (ParameterSpec param : params) {
+            if (param == null || param.name() == null || param.name().isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidModel(PydanticModel model, DtoSpec dto) {
+        if (model.fields() == null) {
+            return dto.fields().isEmpty();
+        }
+        Set<String> names = new HashSet<>();
+        for (PydanticField field : model.fields()) {
+            if (field == null || field.name() == null || field.type() == null || field.type().isBlank()) {
+                return false;
+            }
+            names.add(field.name());
+        }
+        for (FieldSpec field : dto.fields()) {
+            if (!names.contains(field.name()) && (field.jsonAlias() == null || !names.contains(field.jsonAlias()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String routeKey(String method, String path) {
+        return method.toUpperCase(Locale.ROOT) + " " + normalizePath(path);
+    }
+
+    private static String normalizePath(String path) {
+        StringBuilder sb = new StringBuilder(path.length() + 1);
+        if (!path.startsWith("/")) {
+            sb.append('/');
+        }
+        boolean inParam = false;
+        boolean skipRegex = false;
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '{') {
+                inParam = true;
+                skipRegex = false;
+            } else if (c == '}') {
+                inParam = false;
+                skipRegex = false;
+            } else if (inParam && c == ':') {
+                skipRegex = true;
+                continue;
+            }
+            if (skipRegex) {
+                continue;
+            }
+            if (c == '/' && sb.length() > 0 && sb.charAt(sb.length() - 1) == '/') {
+                continue;
+            }
+            sb.append(c);
+        }
+        if (sb.length() > 1 && sb.charAt(sb.length() - 1) == '/') {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    public record Result(FastApiSpec accepted, MigrationSpec remaining) {
+        public boolean complete() {
+            return remaining.endpoints().isEmpty() && remaining.dtos().isEmpty();
+        }
+    }
+}
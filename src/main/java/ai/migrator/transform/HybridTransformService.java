@@ -0,0 +1,116 @@
+package ai.migrator.transform;
+
+import ai.migrator.model.DtoSpec;
+import ai.migrator.model.FastApiSpec;
+import ai.migrator.model.MigrationSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class HybridTransformService {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridTransformService.class);
+
+    private final AiTransformService aiTransformService;
+    private final DeterministicTransformService deterministicTransformService;
+    private final TransformClassifier classifier;
+
+    public HybridTransformService(AiTransformService aiTransformService,
+                                  DeterministicTransformService deterministicTransformService,
+                                  TransformClassifier classifier) {
+        this.aiTransformService = aiTransformService;
+        this.deterministicTransformService = deterministicTransformService;
+        this.classifier = classifier;
+    }
+
+    public FastApiSpec transform(MigrationSpec spec, int maxChunkSize, Path cacheDir) {
+        return transform(spec, maxChunkSize, cacheDir, ChunkListener.NONE);
+    }
+
+    public FastApiSpec transform(MigrationSpec spec, int maxChunkSize, Path cacheDir, ChunkListener listener) {
+        return transformAll(List.of(spec), maxChunkSize, cacheDir, List.of(listener)).getFirst();
+    }
+
+    /**
+     * Transforms several modules, sending the LLM parts of all of them to
+     * {@link AiTransformService#transformAll} together so their chunks are scheduled as one queue.
+     */
+    public List<FastApiSpec> transformAll(List<MigrationSpec> specs, int maxChunkSize, Path cacheDir,
+                                          List<ChunkListener> listeners) {
+        List<MigrationSpec> aiSpecs = new ArrayList<>();
+        List<ChunkListener> aiListeners = new ArrayList<>();
+        List<MigrationSpec> localSpecs = new ArrayList<>();
+        boolean[] usesAi = new boolean[specs.size()];
+        for (int i = 0; i < specs.size(); i++) {
+            MigrationSpec spec = specs.get(i);
+            TransformClassifier.Classification classification = classifier.classify(spec);
+            log.info("Hybrid transform for module {}: {}/{} endpoint(s) and {}/{} DTO(s) routed to the LLM",
+                spec.moduleName(),
+                classification.aiEndpoints().size(), spec.endpoints().size(),
+                classification.aiDtos().size(), spec.dtos().size());
+
+            if (!classification.needsAi()) {
+                localSpecs.add(spec);
+                continue;
+            }
+            usesAi[i] = true;
+            aiSpecs.add(aiSpec(spec, classification));
+            aiListeners.add(listeners.get(i));
+            localSpecs.add(new MigrationSpec(
+                spec.projectName(),
+                spec.moduleName(),
+                classification.localEndpoints(),
+                classification.localDtos(),
+                spec.services(),
+                spec.repositories(),
+                spec.metadata()
+            ));
+        }
+
+        List<FastApiSpec> aiParts = aiSpecs.isEmpty()
+            ? List.of()
+            : aiTransformService.transformAll(aiSpecs, maxChunkSize, cacheDir, aiListeners);
+        List<FastApiSpec> results = new ArrayList<>();
+        int ai = 0;
+        for (int i = 0; i < specs.size(); i++) {
+            FastApiSpec localPart = deterministicTransformService.transform(localSpecs.get(i));
+            results.add(usesAi[i] ? FastApiSpecMerger.merge(List.of(aiParts.get(ai++), localPart)) : localPart);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the part of {@code spec} the hybrid transform sends to the LLM, or {@code null} if it needs none.
+     */
+    public MigrationSpec aiSpec(MigrationSpec spec) {
+        TransformClassifier.Classification classification = classifier.classify(spec);
+        return classification.needsAi() ? aiSpec(spec, classification) : null;
+    }
+
+    private MigrationSpec aiSpec(MigrationSpec spec, TransformClassifier.Classification classification) {
+        Map<String, DtoSpec> aiDtos = new LinkedHashMap<>();
+        for (DtoSpec dto : classification.aiDtos()) {
+            aiDtos.put(dto.id(), dto);
+        }
+        for (DtoSpec dto : MigrationChunker.selectDtos(classification.aiEndpoints(), spec.dtos())) {
+            aiDtos.putIfAbsent(dto.id(), dto);
+        }
+
+        return new MigrationSpec(
+            spec.projectName(),
+            spec.moduleName(),
+            classification.aiEndpoints(),
+            new ArrayList<>(aiDtos.values()),
+            List.of(),
+            List.of(),
+            spec.metadata()
+        );
+    }
+}
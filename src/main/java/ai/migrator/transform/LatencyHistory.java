@@ -0,0 +1,107 @@
+package ai.migrator.transform;
+
+import ai.migrator.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Model call latency of the current run and of earlier runs, kept in {@code latency-history.json} in the cache
+ * dir. Latency is tracked per estimated prompt token so it carries over between chunk sizes; older runs are
+ * halved once they exceed {@code MAX_HISTORY_CALLS} calls, so the figure follows changes in hardware or model.
+ */
+@Component
+public class LatencyHistory {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyHistory.class);
+    private static final String HISTORY_FILE = "latency-history.json";
+    private static final long MAX_HISTORY_CALLS = 1000;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder promptTokens = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private volatile Sample history = Sample.empty();
+
+    public void load(Path cacheDir) {
+        calls.reset();
+        promptTokens.reset();
+        latencyNanos.reset();
+        history = Sample.empty();
+        Path file = cacheDir.resolve(HISTORY_FILE);
+        if (Files.exists(file)) {
+            try {
+                history = JsonUtils.readJson(file, Sample.class);
+            } catch (Exception ex) {
+                log.warn("Ignoring unreadable latency history {}", file, ex);
+            }
+        }
+    }
+
+    public void record(int promptTokens, long latencyNanos) {
+        calls.increment();
+        this.promptTokens.add(Math.max(1, promptTokens));
+        this.latencyNanos.add(latencyNanos);
+    }
+
+    public Sample current() {
+        return new Sample(calls.sum(), promptTokens.sum(), latencyNanos.sum());
+    }
+
+    public Sample history() {
+        return history;
+    }
+
+    /**
+     * Returns the latency per prompt token of this run, or of earlier runs until this run has made a call, or
+     * {@code -1} if neither is known.
+     */
+    public long nanosPerToken() {
+        Sample current = current();
+        if (current.calls() > 0) {
+            return current.nanosPerToken();
+        }
+        return history.calls() > 0 ? history.nanosPerToken() : -1;
+    }
+
+    public void save(Path cacheDir) {
+        Sample current = current();
+        if (current.calls() == 0) {
+            return;
+        }
+        Sample previous = history.calls() > MAX_HISTORY_CALLS ? history.halved() : history;
+        Path file = cacheDir.resolve(HISTORY_FILE);
+        try {
+            Files.createDirectories(cacheDir);
+            JsonUtils.writeJson(file, previous.plus(current));
+        } catch (Exception ex) {
+            log.warn("Could not update latency history {}", file, ex);
+        }
+    }
+
+    public record Sample(long calls, long promptTokens, long latencyNanos) {
+
+        public static Sample empty() {
+            return new Sample(0, 0, 0);
+        }
+
+        public long nanosPerToken() {
+            return promptTokens == 0 ? 0 : latencyNanos / promptTokens;
+        }
+
+        public long averageCallMillis() {
+            return calls == 0 ? 0 : latencyNanos / calls / 1_000_000;
+        }
+
+        Sample plus(Sample other) {
+            return new Sample(calls + other.calls, promptTokens + other.promptTokens, latencyNanos + other.latencyNanos);
+        }
+
+        Sample halved() {
+            return new Sample(calls / 2, promptTokens / 2, latencyNanos / 2);
+        }
+    }
+}
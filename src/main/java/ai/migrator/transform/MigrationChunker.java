@@ -32,12 +32,22 @@ public class MigrationChunker {
         return chunks;
     }
 
-    private static List<DtoSpec> selectDtos(List<EndpointSpec> endpoints, List<DtoSpec> allDtos) {
+    static List<DtoSpec> selectDtos(List<EndpointSpec> endpoints, List<DtoSpec> allDtos) {
+        return selectDtos(endpoints, indexDtos(allDtos));
+    }
+
+    /**
+     * Returns {@code dtos} by simple name, the index {@link #selectDtos(List, Map)} resolves type names against.
+     */
+    static Map<String, DtoSpec> indexDtos(List<DtoSpec> dtos) {
         Map<String, DtoSpec> bySimple = new LinkedHashMap<>();
-        for (DtoSpec dto : allDtos) {
+        for (DtoSpec dto : dtos) {
             bySimple.put(simpleName(dto.name()), dto);
         }
+        return bySimple;
+    }
 
+    static List<DtoSpec> selectDtos(List<EndpointSpec> endpoints, Map<String, DtoSpec> bySimple) {
         Set<String> required = new LinkedHashSet<>();
         Deque<String> queue = new ArrayDeque<>();
 
@@ -0,0 +1,99 @@
+package ai.migrator.transform;
+
+import ai.migrator.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global time budget of a migration run. Model calls are admitted only while the call's expected latency,
+ * extrapolated from the latency per prompt token in {@link LatencyHistory}, still fits before the deadline.
+ * Chunks that end without a complete LLM answer are written to {@code pending.json} in the cache dir, so the
+ * next run schedules them first and fills the cache for them.
+ */
+@Component
+public class MigrationDeadline {
+
+    private static final Logger log = LoggerFactory.getLogger(MigrationDeadline.class);
+    private static final String PENDING_FILE = "pending.json";
+
+    private final LatencyHistory latencyHistory;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> previouslyPending = Set.of();
+    private volatile long deadline = Long.MAX_VALUE;
+
+    public MigrationDeadline(LatencyHistory latencyHistory) {
+        this.latencyHistory = latencyHistory;
+    }
+
+    public void start(Duration budget, Path cacheDir) {
+        deadline = budget == null || budget.isZero() || budget.isNegative()
+            ? Long.MAX_VALUE
+            : System.nanoTime() + budget.toNanos();
+        pending.clear();
+        previouslyPending = Set.of();
+
+        Path file = cacheDir.resolve(PENDING_FILE);
+        if (Files.exists(file)) {
+            try {
+                previouslyPending = Set.of(JsonUtils.readJson(file, String[].class));
+                log.info("{} chunk(s) left unfinished by the previous run are scheduled first", previouslyPending.size());
+            } catch (Exception ex) {
+                log.warn("Ignoring unreadable pending list {}", file, ex);
+            }
+        }
+    }
+
+    public boolean isBounded() {
+        return deadline != Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns whether a model call with a prompt of roughly {@code promptTokens} tokens is expected to finish
+     * before the deadline. Without any latency sample only the deadline itself is checked.
+     */
+    public boolean allows(int promptTokens) {
+        if (!isBounded()) {
+            return true;
+        }
+        long nanosPerToken = latencyHistory.nanosPerToken();
+        long expected = nanosPerToken < 0 ? 0 : nanosPerToken * promptTokens;
+        return System.nanoTime() + expected < deadline;
+    }
+
+    public boolean wasPending(String cacheKey) {
+        return previouslyPending.contains(cacheKey);
+    }
+
+    public void markPending(String cacheKey) {
+        pending.add(cacheKey);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    public void finish(Path cacheDir) {
+        Path file = cacheDir.resolve(PENDING_FILE);
+        try {
+            if (pending.isEmpty()) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            Files.createDirectories(cacheDir);
+            JsonUtils.writeJson(file, List.copyOf(new TreeSet<>(pending)));
+            log.info("{} chunk(s) did not get a complete LLM answer; recorded in {} for the next run",
+                pending.size(), file);
+        } catch (Exception ex) {
+            log.warn("Could not update pending list {}", file, ex);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package ai.migrator.transform;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class ModelCallStats {
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder ttftCalls = new LongAdder();
+    private final LongAdder ttftNanos = new LongAdder();
+
+    public void record(long latency, long timeToFirstToken) {
+        calls.increment();
+        latencyNanos.add(latency);
+        if (timeToFirstToken >= 0) {
+            ttftCalls.increment();
+            ttftNanos.add(timeToFirstToken);
+        }
+    }
+
+    public long calls() {
+        return calls.sum();
+    }
+
+    public long averageLatencyMillis() {
+        long n = calls.sum();
+        return n == 0 ? 0 : latencyNanos.sum() / n / 1_000_000;
+    }
+
+    public long averageTimeToFirstTokenMillis() {
+        long n = ttftCalls.sum();
+        return n == 0 ? -1 : ttftNanos.sum() / n / 1_000_000;
+    }
+}
@@ -0,0 +1,174 @@
+package ai.migrator.transform;
+
+import ai.migrator.config.MigrationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Guards calls to the model endpoint. Transient failures are retried with exponential backoff; after
+ * {@code breakerFailureThreshold} consecutive failed (or too slow) calls the breaker opens and callers are
+ * expected to skip the model. Once {@code breakerCooldown} has passed a single half-open probe is let through,
+ * and its outcome decides whether the breaker closes again.
+ */
+public class ModelCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long cooldownNanos;
+    private final long slowCallNanos;
+    private final int retries;
+    private final long backoffMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private double averageLatencyMillis;
+
+    public ModelCircuitBreaker(String name, MigrationProperties properties) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, properties.getBreakerFailureThreshold());
+        this.cooldownNanos = properties.getBreakerCooldown().toNanos();
+        this.slowCallNanos = properties.getBreakerSlowCall().toNanos();
+        this.retries = Math.max(0, properties.getModelRetries());
+        this.backoffMillis = Math.max(0, properties.getModelRetryBackoff().toMillis());
+    }
+
+    public <T> T call(Supplier<T> action, Predicate<RuntimeException> isFailure) {
+        boolean probe = acquire();
+        int attempts = probe ? 1 : retries + 1;
+        RuntimeException last = null;
+
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            if (attempt > 0) {
+                if (!sleep(backoffMillis << Math.min(attempt - 1, 16))) {
+                    break;
+                }
+                if (!probe && !allowsRequests()) {
+                    break;
+                }
+            }
+            long start = System.nanoTime();
+            try {
+                T result = action.get();
+                onSuccess(System.nanoTime() - start, probe);
+                return result;
+            } catch (RuntimeException ex) {
+                if (!isFailure.test(ex)) {
+                    release(probe);
+                    throw ex;
+                }
+                last = ex;
+                onFailure(System.nanoTime() - start, probe);
+                log.debug("Model call to {} failed (attempt {}/{})", name, attempt + 1, attempts, ex);
+            }
+        }
+        throw last != null ? last : new CircuitOpenException();
+    }
+
+    public synchronized boolean allowsRequests() {
+        return state == State.CLOSED || (state == State.OPEN && cooldownElapsed());
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private synchronized boolean acquire() {
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.OPEN && cooldownElapsed()) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            log.info("Model circuit for {} half-open; sending probe request", name);
+            return true;
+        }
+        throw new CircuitOpenException();
+    }
+
+    private synchronized void release(boolean probe) {
+        if (probe) {
+            probeInFlight = false;
+            state = State.OPEN;
+        }
+    }
+
+    private synchronized void onSuccess(long latencyNanos, boolean probe) {
+        recordLatency(latencyNanos);
+        if (latencyNanos > slowCallNanos) {
+            log.warn("Model call to {} took {} ms (slow-call threshold {} ms)",
+                name, latencyNanos / 1_000_000, slowCallNanos / 1_000_000);
+            registerFailure(probe);
+            return;
+        }
+        if (probe) {
+            probeInFlight = false;
+            state = State.CLOSED;
+            consecutiveFailures = 0;
+            log.info("Model circuit for {} closed; probe succeeded in {} ms", name, latencyNanos / 1_000_000);
+        } else if (state == State.CLOSED) {
+            // a call that started before the breaker opened does not close it; only the probe does
+            consecutiveFailures = 0;
+        }
+    }
+
+    private synchronized void onFailure(long latencyNanos, boolean probe) {
+        recordLatency(latencyNanos);
+        registerFailure(probe);
+    }
+
+    private void registerFailure(boolean probe) {
+        consecutiveFailures++;
+        if (probe) {
+            probeInFlight = false;
+            trip();
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            trip();
+        }
+    }
+
+    private void trip() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        log.warn("Model circuit for {} open after {} consecutive failure(s), average latency {} ms; retrying in {} s",
+            name, consecutiveFailures, Math.round(averageLatencyMillis), Duration.ofNanos(cooldownNanos).toSeconds());
+    }
+
+    private void recordLatency(long latencyNanos) {
+        double millis = latencyNanos / 1_000_000d;
+        averageLatencyMillis = averageLatencyMillis == 0 ? millis : averageLatencyMillis * 0.8 + millis * 0.2;
+    }
+
+    private boolean cooldownElapsed() {
+        return System.nanoTime() - openedAt >= cooldownNanos;
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public static class CircuitOpenException extends IllegalStateException {
+        public CircuitOpenException() {
+            super("Model circuit is open");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ai.migrator.transform;
+
+import org.springframework.ai.chat.client.ChatClient;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A weighted pool of OpenAI-compatible model servers. Each member has its own concurrency limit and circuit
+ * breaker; {@link #acquire(Set)} picks the healthy member with the fewest outstanding requests per unit of
+ * weight and blocks while every healthy member is saturated.
+ */
+public class ModelPool {
+
+    private static final long HEALTH_RECHECK_MILLIS = 1000;
+
+    private final List<Member> members;
+
+    public ModelPool(List<Member> members) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("Model pool needs at least one endpoint");
+        }
+        this.members = List.copyOf(members);
+    }
+
+    public List<Member> members() {
+        return members;
+    }
+
+    public int totalConcurrency() {
+        int total = 0;
+        for (Member member : members) {
+            total += member.maxConcurrency();
+        }
+        return total;
+    }
+
+    public boolean anyHealthy() {
+        for (Member member : members) {
+            if (member.breaker().allowsRequests()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a lease on the least loaded healthy member not in {@code excluded}, or {@code null} if no such
+     * member is healthy.
+     */
+    public synchronized Lease acquire(Set<Member> excluded) {
+        while (true) {
+            Member best = null;
+            boolean anyCandidate = false;
+            for (Member member : members) {
+                if (excluded.contains(member) || !member.breaker().allowsRequests()) {
+                    continue;
+                }
+                anyCandidate = true;
+                if (member.outstanding >= member.maxConcurrency()) {
+                    continue;
+                }
+                if (best == null || member.load() < best.load()) {
+                    best = member;
+                }
+            }
+            if (best != null) {
+                best.outstanding++;
+                return new Lease(best);
+            }
+            if (!anyCandidate) {
+                return null;
+            }
+            try {
+                wait(HEALTH_RECHECK_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a model endpoint", ex);
+            }
+        }
+    }
+
+    private synchronized void release(Member member) {
+        member.outstanding--;
+        notifyAll();
+    }
+
+    public static final class Member {
+        private final String name;
+        private final ChatClient chatClient;
+        private final ModelCircuitBreaker breaker;
+        private final int weight;
+        private final int maxConcurrency;
+        private int outstanding;
+
+        public Member(String name, ChatClient chatClient, ModelCircuitBreaker breaker, int weight, int maxConcurrency) {
+            this.name = name;
+            this.chatClient = chatClient;
+            this.breaker = breaker;
+            this.weight = Math.max(1, weight);
+            this.maxConcurrency = Math.max(1, maxConcurrency);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public ChatClient chatClient() {
+            return chatClient;
+        }
+
+        public ModelCircuitBreaker breaker() {
+            return breaker;
+        }
+
+        public int weight() {
+            return weight;
+        }
+
+        public int maxConcurrency() {
+            return maxConcurrency;
+        }
+
+        private double load() {
+            return (outstanding + 1d) / weight;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public final class Lease implements AutoCloseable {
+        private final Member member;
+        private boolean released;
+
+        private Lease(Member member) {
+            this.member = member;
+        }
+
+        public Member member() {
+            return member;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(member);
+            }
+        }
+    }
+}
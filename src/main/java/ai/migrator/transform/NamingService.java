@@ -0,0 +1,106 @@
+package ai.migrator.transform;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Java to Python name conversions used by the transform and the generator: snake_case function and file names,
+ * Python identifiers and module package names. Acronyms stay together ({@code getHTTPResponse} becomes
+ * {@code get_http_response}, {@code UserDTO} becomes {@code user_dto}). The generator asks for the same names
+ * many times per module, so results are cached; each cache is dropped once it reaches {@link #CACHE_LIMIT}
+ * entries, which keeps memory bounded on very large projects without any bookkeeping on hits.
+ */
+@Component
+public class NamingService {
+
+    static final int CACHE_LIMIT = 8192;
+
+    private final Map<String, String> snakeCache = new ConcurrentHashMap<>();
+    private final Map<String, String> identifierCache = new ConcurrentHashMap<>();
+    private final Map<String, String> packageCache = new ConcurrentHashMap<>();
+
+    public String snake(String name) {
+        if (name == null || name.isBlank()) {
+            return "";
+        }
+        return cached(snakeCache, name, NamingService::toSnake);
+    }
+
+    /**
+     * Returns {@code name} with dashes and other characters that cannot appear in a Python identifier replaced by
+     * underscores, prefixed with {@code param_} if it does not start like an identifier.
+     */
+    public String pythonIdentifier(String name) {
+        if (name == null || name.isBlank()) {
+            return "param";
+        }
+        return cached(identifierCache, name, NamingService::toPythonIdentifier);
+    }
+
+    public String modulePackage(String moduleName) {
+        if (moduleName == null || moduleName.isBlank()) {
+            return "module";
+        }
+        return cached(packageCache, moduleName,
+            name -> toPythonIdentifier(toSnake(name)).toLowerCase(Locale.ROOT));
+    }
+
+    private static String cached(Map<String, String> cache, String key, Function<String, String> conversion) {
+        String value = cache.get(key);
+        if (value != null) {
+            return value;
+        }
+        value = conversion.apply(key);
+        if (cache.size() >= CACHE_LIMIT) {
+            cache.clear();
+        }
+        cache.put(key, value);
+        return value;
+    }
+
+    static String toSnake(String name) {
+        int length = name.length();
+        StringBuilder sb = new StringBuilder(length + 8);
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0 && startsWord(name, i) && sb.length() > 0 && sb.charAt(sb.length() - 1) != '_') {
+                    sb.append('_');
+                }
+                sb.append(Character.toLowerCase(c));
+            } else if (c != '_' || sb.isEmpty() || sb.charAt(sb.length() - 1) != '_') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * An upper-case letter starts a word after a lower-case letter or digit, or as the last capital of an acronym
+     * that is followed by a lower-case letter ({@code HTTPResponse}).
+     */
+    private static boolean startsWord(String name, int i) {
+        char previous = name.charAt(i - 1);
+        if (Character.isLowerCase(previous) || Character.isDigit(previous)) {
+            return true;
+        }
+        return Character.isUpperCase(previous) && i + 1 < name.length() && Character.isLowerCase(name.charAt(i + 1));
+    }
+
+    static String toPythonIdentifier(String name) {
+        String cleaned = name.replace('-', '_');
+        if (!Character.isJavaIdentifierStart(cleaned.charAt(0))) {
+            cleaned = "param_" + cleaned;
+        }
+        StringBuilder sb = new StringBuilder(cleaned.length());
+        for (int i = 0; i < cleaned.length(); i++) {
+            char c = cleaned.charAt(i);
+            sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        return sb.toString();
+    }
+}
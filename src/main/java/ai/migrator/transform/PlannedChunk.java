@@ -0,0 +1,3 @@
+package ai.migrator.transform;
+
+public record PlannedChunk(String key, int endpoints, int promptTokens, boolean cached) {}
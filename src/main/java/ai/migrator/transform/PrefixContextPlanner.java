@@ -0,0 +1,73 @@
+package ai.migrator.transform;
+
+import ai.migrator.model.DtoSpec;
+import ai.migrator.model.MigrationSpec;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Groups consecutive chunks under a shared DTO context block so that requests with identical prompt prefixes run
+ * back to back. A group grows until the union of its DTOs would exceed the context token budget.
+ */
+public class PrefixContextPlanner {
+
+    public static List<ContextGroup> plan(MigrationSpec module,
+                                          List<MigrationSpec> chunks,
+                                          int maxContextTokens,
+                                          ToIntFunction<MigrationSpec> tokenEstimate) {
+        Map<String, Integer> order = new HashMap<>();
+        for (DtoSpec dto : module.dtos()) {
+            order.putIfAbsent(dto.id(), order.size());
+        }
+        Map<String, Integer> dtoTokens = new HashMap<>();
+
+        List<ContextGroup> groups = new ArrayList<>();
+        Map<String, DtoSpec> current = new LinkedHashMap<>();
+        List<MigrationSpec> currentChunks = new ArrayList<>();
+        int currentTokens = 0;
+
+        for (MigrationSpec chunk : chunks) {
+            int added = 0;
+            for (DtoSpec dto : chunk.dtos()) {
+                if (!current.containsKey(dto.id())) {
+                    added += dtoTokens.computeIfAbsent(dto.id(), id -> tokenEstimate.applyAsInt(contextOf(module, List.of(dto))));
+                }
+            }
+            if (!currentChunks.isEmpty() && currentTokens + added > maxContextTokens) {
+                groups.add(new ContextGroup(contextOf(module, sorted(current.values(), order)), currentChunks));
+                current = new LinkedHashMap<>();
+                currentChunks = new ArrayList<>();
+                currentTokens = 0;
+                added = 0;
+                for (DtoSpec dto : chunk.dtos()) {
+                    if (!current.containsKey(dto.id())) {
+                        added += dtoTokens.get(dto.id());
+                    }
+                }
+            }
+            for (DtoSpec dto : chunk.dtos()) {
+                current.putIfAbsent(dto.id(), dto);
+            }
+            currentTokens += added;
+            currentChunks.add(chunk);
+        }
+        if (!currentChunks.isEmpty()) {
+            groups.add(new ContextGroup(contextOf(module, sorted(current.values(), order)), currentChunks));
+        }
+        return groups;
+    }
+
+    private static List<DtoSpec> sorted(Collection<DtoSpec> dtos, Map<String, Integer> order) {
+        List<DtoSpec> result = new ArrayList<>(dtos);
+        result.sort(Comparator.comparingInt(dto -> order.getOrDefault(dto.id(), Integer.MAX_VALUE)));
+        return result;
+    }
+
+    private static MigrationSpec contextOf(MigrationSpec module, List<DtoSpec> dtos) {
+        return new MigrationSpec(module.projectName(), module.moduleName(), List.of(), dtos, List.of(), List.of(),
+            module.metadata());
+    }
+
+    public record ContextGroup(MigrationSpec context, List<MigrationSpec> chunks) {}
+}
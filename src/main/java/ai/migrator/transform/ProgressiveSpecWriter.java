@@ -0,0 +1,77 @@
+package ai.migrator.transform;
+
+import ai.migrator.model.FastApiRoute;
+import ai.migrator.model.FastApiSpec;
+import ai.migrator.model.MigrationSpec;
+import ai.migrator.model.PydanticModel;
+import ai.migrator.util.DataFormat;
+import ai.migrator.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps a module's {@code fastapi-spec} file current while the LLM transform runs. It starts from the
+ * deterministic spec; each finished chunk replaces the routes (by method and path) and models (by name) it
+ * covers, and the file is rewritten only when something actually changed.
+ */
+public class ProgressiveSpecWriter implements ChunkListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressiveSpecWriter.class);
+
+    private final String moduleName;
+    private final Path specFile;
+    private final DataFormat format;
+    private final Map<String, FastApiRoute> routes = new LinkedHashMap<>();
+    private final Map<String, PydanticModel> models = new LinkedHashMap<>();
+    private int refinedRoutes;
+    private int refinedModels;
+
+    public ProgressiveSpecWriter(String moduleName, Path specFile, DataFormat format, FastApiSpec baseline) {
+        this.moduleName = moduleName;
+        this.specFile = specFile;
+        this.format = format;
+        for (FastApiRoute route : baseline.routes()) {
+            routes.put(FastApiSpecValidator.routeKey(route.method(), route.path()), route);
+        }
+        for (PydanticModel model : baseline.models()) {
+            models.put(model.name(), model);
+        }
+    }
+
+    @Override
+    public synchronized void onChunk(MigrationSpec chunk, FastApiSpec result) {
+        int changedRoutes = 0;
+        int changedModels = 0;
+        for (FastApiRoute route : result.routes()) {
+            FastApiRoute previous = routes.put(FastApiSpecValidator.routeKey(route.method(), route.path()), route);
+            if (!Objects.equals(previous, route)) {
+                changedRoutes++;
+            }
+        }
+        for (PydanticModel model : result.models()) {
+            PydanticModel previous = models.put(model.name(), model);
+            if (!Objects.equals(previous, model)) {
+                changedModels++;
+            }
+        }
+        if (changedRoutes == 0 && changedModels == 0) {
+            return;
+        }
+        refinedRoutes += changedRoutes;
+        refinedModels += changedModels;
+        try {
+            JsonUtils.write(specFile, new FastApiSpec(new ArrayList<>(models.values()), new ArrayList<>(routes.values())),
+                format);
+            log.info("Module {}: refined {} route(s) and {} model(s) ({} and {} so far)",
+                moduleName, changedRoutes, changedModels, refinedRoutes, refinedModels);
+        } catch (Exception ex) {
+            log.warn("Could not update {}", specFile, ex);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package ai.migrator.transform;
 
+import ai.migrator.config.MigrationProperties;
+import ai.migrator.model.DtoSpec;
+import ai.migrator.model.FastApiBatchSpec;
 import ai.migrator.model.MigrationSpec;
 import ai.migrator.util.JsonUtils;
 import org.springframework.core.io.ClassPathResource;
@@ -7,17 +10,105 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
 
 @Component
 public class PromptBuilder {
 
-    public String systemPrompt() {
-        return load("prompts/fastapi-transform-system.txt");
+    private final boolean compact;
+    private final boolean prefixLayout;
+    private final String systemPrompt;
+    private final String batchSystemPrompt;
+    private final String repairPreamble;
+    private final PromptTemplate jsonTemplate;
+    private final PromptTemplate compactTemplate;
+    private final PromptTemplate layoutTemplate;
+    private final PromptTemplate batchTemplate;
+
+    public PromptBuilder(MigrationProperties properties) {
+        this.compact = properties.isCompactPrompts();
+        this.prefixLayout = properties.isPrefixLayout();
+        PromptTemplate system = PromptTemplate.parse(load("prompts/fastapi-transform-system.txt"));
+        this.systemPrompt = system.render(Map.of("schema", load("prompts/fastapi-transform-schema.txt")));
+        this.batchSystemPrompt = system.render(Map.of("schema", load("prompts/fastapi-transform-batch-schema.txt")));
+        this.repairPreamble = load("prompts/fastapi-transform-repair.txt");
+        this.jsonTemplate = PromptTemplate.parse(load("prompts/fastapi-transform-user.txt"));
+        this.compactTemplate = PromptTemplate.parse(load("prompts/fastapi-transform-user-compact.txt"));
+        this.layoutTemplate = PromptTemplate.parse(load("prompts/fastapi-transform-layout.txt"));
+        this.batchTemplate = PromptTemplate.parse(load("prompts/fastapi-transform-batch.txt"));
+    }
+
+    public boolean isPrefixLayout() {
+        return prefixLayout;
+    }
+
+    /**
+     * The system prompt for a request answered as {@code type}: batch requests get the {@code modules} schema their
+     * user prompt asks for, everything else the single-module schema.
+     */
+    public String systemPrompt(Class<?> type) {
+        return type == FastApiBatchSpec.class ? batchSystemPrompt : systemPrompt;
     }
 
     public String userPrompt(MigrationSpec spec) {
-        String template = load("prompts/fastapi-transform-user.txt");
-        return template.replace("{{spec}}", JsonUtils.toJson(spec));
+        return compact
+            ? compactTemplate.render(Map.of("spec", CompactSpecEncoder.encode(spec)))
+            : jsonTemplate.render(Map.of("spec", JsonUtils.toJson(spec)));
+    }
+
+    /**
+     * Builds a user prompt whose leading part depends only on {@code context}, so consecutive requests that share
+     * a context also share a long token prefix the model server can serve from its KV cache. The chunk's endpoints
+     * are encoded against the context's type dictionary, and the prompt names exactly the chunk's DTOs as the
+     * models to emit, which is what {@link FastApiSpecValidator} checks the answer against.
+     */
+    public String userPrompt(MigrationSpec chunk, MigrationSpec context) {
+        if (context == null) {
+            return userPrompt(chunk);
+        }
+        MigrationSpec endpointsOnly = new MigrationSpec(chunk.projectName(), chunk.moduleName(), chunk.endpoints(),
+            List.of(), List.of(), List.of(), chunk.metadata());
+        StringJoiner models = new StringJoiner(", ");
+        for (DtoSpec dto : chunk.dtos()) {
+            models.add(dto.name());
+        }
+        String body = layoutTemplate.render(Map.of(
+            "context", encode(context),
+            "models", models.length() == 0 ? "(none)" : models.toString(),
+            "spec", compact ? CompactSpecEncoder.encode(endpointsOnly, context) : JsonUtils.toJson(endpointsOnly)
+        ));
+        return (compact ? compactTemplate : jsonTemplate).render(Map.of("spec", body));
+    }
+
+    public String batchPrompt(Map<String, MigrationSpec> taggedModules) {
+        StringBuilder modules = new StringBuilder();
+        for (Map.Entry<String, MigrationSpec> entry : taggedModules.entrySet()) {
+            modules.append("### ").append(entry.getKey()).append('\n')
+                .append(encode(entry.getValue())).append('\n');
+        }
+        String body = batchTemplate.render(Map.of("modules", modules.toString()));
+        return (compact ? compactTemplate : jsonTemplate).render(Map.of("spec", body));
+    }
+
+    public String repairPrompt(MigrationSpec remaining) {
+        return repairPreamble + userPrompt(remaining);
+    }
+
+    public int estimateTokens(MigrationSpec spec) {
+        return PromptSizeReport.estimateTokens(encode(spec));
+    }
+
+    public PromptSizeReport sizeReport(MigrationSpec spec) {
+        int jsonChars = jsonTemplate.render(Map.of("spec", JsonUtils.toJson(spec))).length();
+        int compactChars = compactTemplate.render(Map.of("spec", CompactSpecEncoder.encode(spec))).length();
+        return new PromptSizeReport(jsonChars, compactChars);
+    }
+
+    private String encode(MigrationSpec spec) {
+        return compact ? CompactSpecEncoder.encode(spec) : JsonUtils.toJson(spec);
     }
 
     private String load(String path) {
@@ -30,4 +121,38 @@ public class PromptBuilder {
             throw new IllegalStateException("Failed to load prompt: " + path, ex);
         }
     }
+
+    private record PromptTemplate(List<String> literals, List<String> placeholders) {
+        static PromptTemplate parse(String template) {
+            List<String> literals = new ArrayList<>();
+            List<String> placeholders = new ArrayList<>();
+            int pos = 0;
+            while (true) {
+                int start = template.indexOf("{{", pos);
+                int end = start == -1 ? -1 : template.indexOf("}}", start + 2);
+                if (end == -1) {
+                    literals.add(template.substring(pos));
+                    return new PromptTemplate(literals, placeholders);
+                }
+                literals.add(template.substring(pos, start));
+                placeholders.add(template.substring(start + 2, end).trim());
+                pos = end + 2;
+            }
+        }
+
+        String render(Map<String, String> values) {
+            int size = 0;
+            for (String literal : literals) {
+                size += literal.length();
+            }
+            for (String value : values.values()) {
+                size += value.length();
+            }
+            StringBuilder sb = new StringBuilder(size);
+            for (int i = 0; i < placeholders.size(); i++) {
+                sb.append(literals.get(i)).append(values.getOrDefault(placeholders.get(i), ""));
+            }
+            return sb.append(literals.getLast()).toString();
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package ai.migrator.transform;
+
+public record PromptSizeReport(int jsonChars, int compactChars) {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    public int jsonTokens() {
+        return (jsonChars + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    public int compactTokens() {
+        return (compactChars + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    public int savedTokens() {
+        return jsonTokens() - compactTokens();
+    }
+
+    public double savedRatio() {
+        return jsonChars == 0 ? 0d : 1d - (double) compactChars / jsonChars;
+    }
+
+    public PromptSizeReport plus(PromptSizeReport other) {
+        return new PromptSizeReport(jsonChars + other.jsonChars, compactChars + other.compactChars);
+    }
+
+    public static PromptSizeReport empty() {
+        return new PromptSizeReport(0, 0);
+    }
+}
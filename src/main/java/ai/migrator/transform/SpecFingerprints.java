@@ -0,0 +1,219 @@
+package ai.migrator.transform;
+
+import ai.migrator.model.DtoSpec;
+import ai.migrator.model.EndpointSpec;
+import ai.migrator.model.FieldSpec;
+import ai.migrator.model.MethodParamSpec;
+import ai.migrator.model.MethodSpec;
+import ai.migrator.model.MigrationSpec;
+import ai.migrator.model.ParameterSpec;
+import ai.migrator.model.RepositorySpec;
+import ai.migrator.model.ServiceSpec;
+import ai.migrator.model.TypeRef;
+import ai.migrator.model.ValidationSpec;
+import ai.migrator.util.Hashing;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Structural SHA-256 fingerprints of the analysis records, built Merkle style: a record's fingerprint covers its
+ * own values and the fingerprints of the records it contains, so a DTO hashes its fields' {@link TypeRef}s and a
+ * module hashes the fingerprints of its endpoints, DTOs and services. {@link #route} adds the DTOs an endpoint uses
+ * (transitively, resolved like {@link MigrationChunker#selectDtos}), and {@link #controllers} rolls those up per
+ * controller, so a change to one DTO field changes exactly the routes and controllers that reach that DTO.
+ * <p>
+ * The fingerprints decide what is redone: LLM cache keys are module fingerprints of the chunks, and the generator
+ * skips rendering files whose source fingerprint matches the previous run. Records are value objects, so
+ * fingerprints are memoized by record; like {@link NamingService}, the cache is dropped once it reaches
+ * {@link #CACHE_LIMIT} entries.
+ */
+@Component
+public class SpecFingerprints {
+
+    static final int CACHE_LIMIT = 65536;
+
+    private static final char SEPARATOR = '\u0000';
+    private static final char NULL = '\u0001';
+
+    private final Map<Object, String> cache = new ConcurrentHashMap<>();
+
+    public String typeRef(TypeRef type) {
+        if (type == null) {
+            return "";
+        }
+        return cached(type, t -> hasher("type")
+            .put(t.name()).put(t.collection()).put(t.collectionType()).put(t.elementType())
+            .hex());
+    }
+
+    /**
+     * Fingerprint of the DTO's own declaration; DTOs its fields refer to are covered by {@link #route}.
+     */
+    public String dto(DtoSpec dto) {
+        return cached(dto, d -> {
+            Fields hasher = hasher("dto").put(d.packageName()).put(d.name()).put(d.record());
+            for (FieldSpec field : d.fields()) {
+                ValidationSpec v = field.validation();
+                hasher.put(field.name()).put(typeRef(field.type())).put(field.optional()).put(field.jsonAlias())
+                    .put(v.minLength()).put(v.maxLength()).put(v.min()).put(v.max())
+                    .put(v.gt()).put(v.ge()).put(v.lt()).put(v.le())
+                    .put(v.notBlank()).put(v.notNull()).put(v.email()).put(v.pattern());
+            }
+            return hasher.hex();
+        });
+    }
+
+    /**
+     * Fingerprint of the endpoint's own declaration, without the DTOs it uses.
+     */
+    public String endpoint(EndpointSpec endpoint) {
+        return cached(endpoint, e -> {
+            Fields hasher = hasher("endpoint")
+                .put(e.id()).put(e.controllerClass()).put(e.controllerPath()).put(e.methodName())
+                .put(e.methodPath()).put(e.httpMethod()).put(e.path()).put(e.statusCode())
+                .put(typeRef(e.requestBody())).put(typeRef(e.responseBody()));
+            params(hasher.put("query"), e.queryParams());
+            params(hasher.put("path"), e.pathParams());
+            params(hasher.put("header"), e.headerParams());
+            hasher.put("services").put(e.controllerServices()).put("annotations").put(e.customAnnotations());
+            return hasher.hex();
+        });
+    }
+
+    public String service(ServiceSpec service) {
+        return cached(service, s -> {
+            Fields hasher = hasher("service").put(s.packageName()).put(s.name());
+            for (MethodSpec method : s.methods()) {
+                hasher.put(method.name()).put(typeRef(method.returnType())).put(method.params().size());
+                for (MethodParamSpec param : method.params()) {
+                    hasher.put(param.name()).put(typeRef(param.type())).put(param.optional());
+                }
+            }
+            return hasher.hex();
+        });
+    }
+
+    /**
+     * Fingerprint of {@code endpoint} together with the DTOs it uses, directly or through their fields, out of
+     * {@code dtosBySimpleName}.
+     */
+    public String route(EndpointSpec endpoint, Map<String, DtoSpec> dtosBySimpleName) {
+        Fields hasher = hasher("route").put(endpoint(endpoint));
+        for (DtoSpec dto : MigrationChunker.selectDtos(List.of(endpoint), dtosBySimpleName)) {
+            hasher.put(dto(dto));
+        }
+        return hasher.hex();
+    }
+
+    /**
+     * Roll-up of the {@link #route} fingerprints of each controller's endpoints, by controller class in the order
+     * the controllers first appear.
+     */
+    public Map<String, String> controllers(MigrationSpec spec) {
+        Map<String, DtoSpec> dtos = MigrationChunker.indexDtos(spec.dtos());
+        Map<String, Fields> hashers = new LinkedHashMap<>();
+        for (EndpointSpec endpoint : spec.endpoints()) {
+            hashers.computeIfAbsent(endpoint.controllerClass(), controller -> hasher("controller").put(controller))
+                .put(route(endpoint, dtos));
+        }
+        Map<String, String> controllers = new LinkedHashMap<>();
+        hashers.forEach((controller, hasher) -> controllers.put(controller, hasher.hex()));
+        return controllers;
+    }
+
+    /**
+     * Fingerprint of a whole module or chunk: its names and metadata and the fingerprints of everything in it. The
+     * LLM response cache is keyed by the fingerprint of each chunk.
+     */
+    public String module(MigrationSpec spec) {
+        Fields hasher = hasher("module").put(spec.projectName()).put(spec.moduleName());
+        Map<String, String> metadata = spec.metadata() == null ? Map.of() : new TreeMap<>(spec.metadata());
+        hasher.put(metadata.size());
+        metadata.forEach((key, value) -> hasher.put(key).put(value));
+        hasher.put(spec.endpoints().size());
+        for (EndpointSpec endpoint : spec.endpoints()) {
+            hasher.put(endpoint(endpoint));
+        }
+        hasher.put(spec.dtos().size());
+        for (DtoSpec dto : spec.dtos()) {
+            hasher.put(dto(dto));
+        }
+        hasher.put(spec.services().size());
+        for (ServiceSpec service : spec.services()) {
+            hasher.put(service(service));
+        }
+        hasher.put(spec.repositories().size());
+        for (RepositorySpec repository : spec.repositories()) {
+            hasher.put(repository.packageName()).put(repository.name());
+        }
+        return hasher.hex();
+    }
+
+    private void params(Fields hasher, List<ParameterSpec> params) {
+        hasher.put(params.size());
+        for (ParameterSpec param : params) {
+            hasher.put(param.name()).put(typeRef(param.type())).put(param.required())
+                .put(param.source()).put(param.optional());
+        }
+    }
+
+    private <T> String cached(T record, Function<T, String> fingerprint) {
+        String value = cache.get(record);
+        if (value != null) {
+            return value;
+        }
+        value = fingerprint.apply(record);
+        if (cache.size() >= CACHE_LIMIT) {
+            cache.clear();
+        }
+        cache.put(record, value);
+        return value;
+    }
+
+    private Fields hasher(String kind) {
+        return new Fields(Hashing.newSha256()).put(kind);
+    }
+
+    /**
+     * Feeds values to a hash, each followed by a separator and {@code null} as its own marker, so adjacent values
+     * cannot run into each other.
+     */
+    private static final class Fields {
+        private final Hashing.Hasher hasher;
+
+        Fields(Hashing.Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        Fields put(Object value) {
+            if (value == null) {
+                hasher.put(NULL);
+            } else {
+                hasher.put(value.toString());
+            }
+            hasher.put(SEPARATOR);
+            return this;
+        }
+
+        Fields put(List<String> values) {
+            if (values == null) {
+                return put((Object) null);
+            }
+            put(values.size());
+            for (String value : values) {
+                put(value);
+            }
+            return this;
+        }
+
+        String hex() {
+            return hasher.hex();
+        }
+    }
+}
@@ -1,87 +1,689 @@
 package ai.migrator.transform;
 
+import ai.migrator.config.MigrationProperties;
+import ai.migrator.model.FastApiBatchSpec;
 import ai.migrator.model.FastApiSpec;
 import ai.migrator.model.MigrationSpec;
-import ai.migrator.util.Hashing;
+import ai.migrator.util.DataFormat;
+import ai.migrator.util.JsonObjectTracker;
 import ai.migrator.util.JsonUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.converter.BeanOutputConverter;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.ResponseFormat;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Service
 public class SpringAiTransformService implements AiTransformService {
 
     private static final Logger log = LoggerFactory.getLogger(SpringAiTransformService.class);
 
-    private final ChatClient chatClient;
+    private final ModelPool modelPool;
     private final PromptBuilder promptBuilder;
     private final DeterministicTransformService fallback;
+    private final MigrationDeadline deadline;
+    private final TokenUsageRecorder usageRecorder;
+    private final LatencyHistory latencyHistory;
+    private final SpecFingerprints fingerprints;
+    private final int repairAttempts;
+    private final int prefixContextTokens;
+    private final boolean streamResponses;
+    private final MigrationProperties.ResponseFormat responseFormat;
+    private final Map<Class<?>, OpenAiChatOptions> requestOptions = new ConcurrentHashMap<>();
+    private final int batchTokenBudget;
+    private final DataFormat cacheFormat;
 
-    public SpringAiTransformService(ChatClient chatClient,
+    public SpringAiTransformService(ModelPool modelPool,
                                    PromptBuilder promptBuilder,
-                                   DeterministicTransformService fallback) {
-        this.chatClient = chatClient;
+                                   DeterministicTransformService fallback,
+                                   MigrationDeadline deadline,
+                                   TokenUsageRecorder usageRecorder,
+                                   LatencyHistory latencyHistory,
+                                   SpecFingerprints fingerprints,
+                                   MigrationProperties properties) {
+        this.modelPool = modelPool;
         this.promptBuilder = promptBuilder;
         this.fallback = fallback;
+        this.deadline = deadline;
+        this.usageRecorder = usageRecorder;
+        this.latencyHistory = latencyHistory;
+        this.fingerprints = fingerprints;
+        this.repairAttempts = Math.max(0, properties.getRepairAttempts());
+        this.prefixContextTokens = properties.getPrefixContextTokens();
+        this.streamResponses = properties.isStreamResponses();
+        this.responseFormat = properties.getResponseFormat() == null
+            ? MigrationProperties.ResponseFormat.TEXT
+            : properties.getResponseFormat();
+        this.batchTokenBudget = properties.getBatchTokenBudget();
+        this.cacheFormat = properties.getMetadataFormat();
     }
 
     @Override
-    public FastApiSpec transform(MigrationSpec spec, int maxChunkSize, Path cacheDir) {
+    public FastApiSpec transform(MigrationSpec spec, int maxChunkSize, Path cacheDir, ChunkListener listener) {
+        return transformAll(List.of(spec), maxChunkSize, cacheDir, List.of(listener)).getFirst();
+    }
+
+    /**
+     * Plans the chunks of all modules up front and submits them as one queue, ordered across modules by
+     * {@link #schedule}, so the largest requests of the run start first rather than the largest of each module.
+     */
+    @Override
+    public List<FastApiSpec> transformAll(List<MigrationSpec> specs, int maxChunkSize, Path cacheDir,
+                                          List<ChunkListener> listeners) {
         try {
             Files.createDirectories(cacheDir);
         } catch (Exception ex) {
             log.warn("Could not create cache dir: {}", cacheDir, ex);
         }
 
-        List<FastApiSpec> parts = new ArrayList<>();
-        List<MigrationSpec> chunks = MigrationChunker.chunk(spec, maxChunkSize);
+        List<ChunkTask> planned = new ArrayList<>();
+        int[] chunkCounts = new int[specs.size()];
+        ModelCallStats[] stats = new ModelCallStats[specs.size()];
+        for (int m = 0; m < specs.size(); m++) {
+            List<ChunkTask> moduleTasks = planTasks(m, planned.isEmpty() ? 0 : planned.getLast().group() + 1,
+                specs.get(m), MigrationChunker.chunk(specs.get(m), maxChunkSize));
+            planned.addAll(moduleTasks);
+            chunkCounts[m] = moduleTasks.size();
+            stats[m] = new ModelCallStats();
+        }
+        List<ChunkTask> scheduled = schedule(planned, cacheDir);
+        List<Callable<ChunkOutcome>> tasks = new ArrayList<>();
+        for (ChunkTask task : scheduled) {
+            tasks.add(() -> {
+                ChunkOutcome outcome = processChunk(task, cacheDir, stats[task.module()]);
+                listeners.get(task.module()).onChunk(task.chunk(), outcome.spec());
+                return outcome;
+            });
+        }
+        List<ChunkOutcome> finished = runAll(tasks);
 
-        for (MigrationSpec chunk : chunks) {
-            try {
-                String payload = JsonUtils.toPrettyJson(chunk);
-                String hash = Hashing.sha256(payload);
-                Path cacheFile = cacheDir.resolve(hash + ".json");
+        // merge in chunk order so the result does not depend on the scheduling order
+        ChunkOutcome[][] outcomes = new ChunkOutcome[specs.size()][];
+        for (int m = 0; m < specs.size(); m++) {
+            outcomes[m] = new ChunkOutcome[chunkCounts[m]];
+        }
+        for (int i = 0; i < scheduled.size(); i++) {
+            ChunkTask task = scheduled.get(i);
+            outcomes[task.module()][task.index()] = finished.get(i);
+        }
+        List<FastApiSpec> results = new ArrayList<>();
+        for (int m = 0; m < specs.size(); m++) {
+            results.add(merge(specs.get(m), outcomes[m], stats[m]));
+        }
+        return results;
+    }
+
+    private FastApiSpec merge(MigrationSpec spec, ChunkOutcome[] outcomes, ModelCallStats stats) {
+        FastApiSpecMerger merger = new FastApiSpecMerger();
+        PromptSizeReport promptSize = PromptSizeReport.empty();
+        int skipped = 0;
+        int deferred = 0;
+        for (ChunkOutcome outcome : outcomes) {
+            merger.add(outcome.spec());
+            promptSize = promptSize.plus(outcome.promptSize());
+            if (outcome.skipped()) {
+                skipped++;
+            }
+            if (outcome.deferred()) {
+                deferred++;
+            }
+        }
+
+        if (skipped > 0) {
+            log.warn("{} chunk(s) of module {} used the deterministic fallback while the model circuit was open",
+                skipped, spec.moduleName());
+        }
+        if (deferred > 0) {
+            log.warn("{} chunk(s) of module {} used the deterministic transform because the time budget ran out",
+                deferred, spec.moduleName());
+        }
+        if (promptSize.jsonChars() > 0) {
+            log.info("Prompt size for module {}: ~{} tokens as JSON, ~{} tokens compact ({} saved, {}%)",
+                spec.moduleName(), promptSize.jsonTokens(), promptSize.compactTokens(), promptSize.savedTokens(),
+                Math.round(promptSize.savedRatio() * 100));
+        }
+        if (stats.calls() > 0) {
+            long ttft = stats.averageTimeToFirstTokenMillis();
+            log.info("Model calls for module {}: {} call(s), average latency {} ms, average time to first token {} ({} prompt layout)",
+                spec.moduleName(), stats.calls(), stats.averageLatencyMillis(), ttft < 0 ? "n/a" : ttft + " ms",
+                promptBuilder.isPrefixLayout() ? "prefix" : "flat");
+        }
+        TokenUsage usage = usageRecorder.moduleTotal(spec.moduleName());
+        if (usage.calls() > 0 || usage.cacheHits() > 0) {
+            log.info("Token usage for module {} so far: {} prompt + {} completion tokens, {} cache hit(s) saved ~{} tokens",
+                spec.moduleName(), usage.promptTokens(), usage.completionTokens(), usage.cacheHits(), usage.savedTokens());
+        }
+        List<FastApiSpecMerger.Conflict> conflicts = merger.conflicts();
+        if (!conflicts.isEmpty()) {
+            log.warn("{} conflicting value(s) between chunk answers of module {}; kept the first chunk's value",
+                conflicts.size(), spec.moduleName());
+            for (FastApiSpecMerger.Conflict conflict : conflicts) {
+                log.debug("Module {}: {}", spec.moduleName(), conflict);
+            }
+        }
+
+        return merger.result();
+    }
 
-                if (Files.exists(cacheFile)) {
-                    parts.add(JsonUtils.readJson(cacheFile, FastApiSpec.class));
+    @Override
+    public List<PlannedChunk> plan(MigrationSpec spec, int maxChunkSize, Path cacheDir) {
+        List<PlannedChunk> planned = new ArrayList<>();
+        for (ChunkTask task : planTasks(0, 0, spec, MigrationChunker.chunk(spec, maxChunkSize))) {
+            MigrationSpec chunk = task.chunk();
+            planned.add(new PlannedChunk(
+                cacheKey(chunk),
+                chunk.endpoints().size(),
+                promptTokens(promptBuilder.userPrompt(chunk, task.context()), FastApiSpec.class),
+                Files.exists(cacheFile(cacheDir, chunk))
+            ));
+        }
+        return planned;
+    }
+
+    /**
+     * Packs modules that fit in a single chunk into shared requests of up to {@code batchTokenBudget} prompt
+     * tokens, so small modules do not each pay for a full round-trip. Larger modules, and any module whose part
+     * of a batched answer is missing or invalid, go through the regular per-module path.
+     */
+    @Override
+    public List<FastApiSpec> transformBatch(List<MigrationSpec> specs, int maxChunkSize, Path cacheDir) {
+        try {
+            Files.createDirectories(cacheDir);
+        } catch (Exception ex) {
+            log.warn("Could not create cache dir: {}", cacheDir, ex);
+        }
+
+        FastApiSpec[] results = new FastApiSpec[specs.size()];
+        List<List<Integer>> batches = new ArrayList<>();
+        List<Integer> current = new ArrayList<>();
+        int currentTokens = 0;
+
+        for (int i = 0; i < specs.size(); i++) {
+            MigrationSpec spec = specs.get(i);
+            Path cacheFile = cacheFile(cacheDir, spec);
+            if (Files.exists(cacheFile)) {
+                results[i] = readCached(cacheFile);
+                if (results[i] != null) {
+                    usageRecorder.record(spec, cacheKey(spec), TokenUsageRecorder.Source.CACHE,
+                        cacheHitUsage(promptBuilder.userPrompt(spec), results[i]));
                     continue;
                 }
+            }
+            int tokens = promptBuilder.estimateTokens(spec);
+            if (spec.endpoints().size() > maxChunkSize || tokens > batchTokenBudget) {
+                continue;
+            }
+            if (!current.isEmpty() && currentTokens + tokens > batchTokenBudget) {
+                batches.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(i);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+
+        ModelCallStats stats = new ModelCallStats();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        int batchedModules = 0;
+        for (List<Integer> batch : batches) {
+            if (batch.size() > 1) {
+                batchedModules += batch.size();
+                tasks.add(() -> {
+                    transformBatch(specs, batch, cacheDir, results, stats);
+                    return null;
+                });
+            }
+        }
+        if (!tasks.isEmpty()) {
+            log.info("Batching {} small module(s) into {} request(s)", batchedModules, tasks.size());
+            runAll(tasks);
+        }
+
+        List<Integer> rest = new ArrayList<>();
+        for (int i = 0; i < specs.size(); i++) {
+            if (results[i] == null) {
+                rest.add(i);
+            }
+        }
+        List<FastApiSpec> restResults = transformAll(rest.stream().map(specs::get).toList(), maxChunkSize, cacheDir,
+            rest.stream().map(i -> ChunkListener.NONE).toList());
+        for (int i = 0; i < rest.size(); i++) {
+            results[rest.get(i)] = restResults.get(i);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void transformBatch(List<MigrationSpec> specs, List<Integer> batch, Path cacheDir,
+                                FastApiSpec[] results, ModelCallStats stats) {
+        if (!modelPool.anyHealthy()) {
+            return;
+        }
+        Map<String, MigrationSpec> tagged = new LinkedHashMap<>();
+        for (int i : batch) {
+            tagged.put("m" + i, specs.get(i));
+        }
+        String prompt = promptBuilder.batchPrompt(tagged);
+        if (!deadline.allows(promptTokens(prompt, FastApiBatchSpec.class))) {
+            return;
+        }
+
+        FastApiBatchSpec answer;
+        TokenAccount batchAccount = new TokenAccount();
+        try {
+            answer = callModel(prompt, stats, FastApiBatchSpec.class, batchAccount);
+        } catch (RuntimeException ex) {
+            log.warn("Batched request for {} module(s) failed; transforming them one by one", batch.size(), ex);
+            return;
+        }
 
-                String content = chatClient.prompt()
-                    .system(promptBuilder.systemPrompt())
-                    .user(promptBuilder.userPrompt(chunk))
-                    .call()
-                    .content();
+        // the shared request is attributed to the modules in proportion to their share of the prompt
+        int batchTokens = 0;
+        for (int i : batch) {
+            batchTokens += promptBuilder.estimateTokens(specs.get(i));
+        }
+        boolean first = true;
+        for (int i : batch) {
+            MigrationSpec spec = specs.get(i);
+            FastApiSpec part = answer.modules() != null ? answer.modules().get("m" + i) : null;
+            FastApiSpecValidator.Result result = FastApiSpecValidator.validate(spec, part);
+            TokenAccount account = new TokenAccount();
+            account.add(batchAccount.total().share(
+                (double) promptBuilder.estimateTokens(spec) / Math.max(1, batchTokens), first));
+            first = false;
+            ChunkResult chunkResult = result.complete()
+                ? new ChunkResult(result.accepted(), true)
+                : repair(result, stats, account);
+            usageRecorder.record(spec, cacheKey(spec), TokenUsageRecorder.Source.BATCH, account.total());
+            results[i] = chunkResult.spec();
+            if (chunkResult.complete()) {
+                writeCache(cacheFile(cacheDir, spec), chunkResult.spec());
+            } else {
+                deadline.markPending(cacheKey(spec));
+            }
+        }
+    }
+
+    private ChunkResult repair(FastApiSpecValidator.Result partial, ModelCallStats stats, TokenAccount account) {
+        ChunkResult rest = transformChunk(partial.remaining(), null, stats, account);
+        return new ChunkResult(FastApiSpecMerger.merge(List.of(partial.accepted(), rest.spec())), rest.complete());
+    }
+
+    private String cacheKey(MigrationSpec chunk) {
+        return fingerprints.module(chunk);
+    }
+
+    private Path cacheFile(Path cacheDir, MigrationSpec chunk) {
+        return cacheDir.resolve(cacheFormat.fileName(cacheKey(chunk)));
+    }
 
-                if (content == null || content.isBlank()) {
-                    throw new IllegalStateException("LLM returned empty content");
+    private FastApiSpec readCached(Path cacheFile) {
+        try {
+            return JsonUtils.read(cacheFile, FastApiSpec.class, cacheFormat);
+        } catch (Exception ex) {
+            log.warn("Ignoring unreadable cache entry {}", cacheFile, ex);
+            return null;
+        }
+    }
+
+    private void writeCache(Path cacheFile, FastApiSpec spec) {
+        try {
+            JsonUtils.write(cacheFile, spec, cacheFormat);
+        } catch (Exception ex) {
+            log.warn("Could not write cache entry {}", cacheFile, ex);
+        }
+    }
+
+    private <T> List<T> runAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>();
+        int parallelism = Math.min(tasks.size(), modelPool.totalConcurrency());
+        if (parallelism <= 1) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (Exception ex) {
+                    throw new IllegalStateException("Chunk transform failed", ex);
                 }
+            }
+            return results;
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<T> future : futures) {
+                results.add(await(future));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Plans the chunk tasks of module {@code module}, numbering their prefix context groups from {@code firstGroup}
+     * so groups stay distinct across modules.
+     */
+    private List<ChunkTask> planTasks(int module, int firstGroup, MigrationSpec spec, List<MigrationSpec> chunks) {
+        List<ChunkTask> tasks = new ArrayList<>();
+        if (!promptBuilder.isPrefixLayout()) {
+            for (MigrationSpec chunk : chunks) {
+                tasks.add(new ChunkTask(module, tasks.size(), firstGroup + tasks.size(), chunk, null));
+            }
+            return tasks;
+        }
+        int group = firstGroup;
+        for (PrefixContextPlanner.ContextGroup contextGroup
+            : PrefixContextPlanner.plan(spec, chunks, prefixContextTokens, promptBuilder::estimateTokens)) {
+            for (MigrationSpec chunk : contextGroup.chunks()) {
+                tasks.add(new ChunkTask(module, tasks.size(), group, chunk, contextGroup.context()));
+            }
+            group++;
+        }
+        return tasks;
+    }
+
+    /**
+     * Orders the chunks of all modules for submission: chunks left unfinished by the previous run first, then
+     * largest-first across modules, so the expensive requests start while most of the time budget is left. Chunks
+     * sharing a prefix context stay together; groups are ordered by their total size.
+     */
+    private List<ChunkTask> schedule(List<ChunkTask> tasks, Path cacheDir) {
+        if (tasks.size() <= 1) {
+            return tasks;
+        }
+        Map<ChunkTask, Integer> tokens = new LinkedHashMap<>();
+        Map<Integer, Integer> groupTokens = new LinkedHashMap<>();
+        Set<ChunkTask> retried = new HashSet<>();
+        for (ChunkTask task : tasks) {
+            int estimate = promptBuilder.estimateTokens(task.chunk());
+            tokens.put(task, estimate);
+            groupTokens.merge(task.group(), estimate, Integer::sum);
+            if (deadline.wasPending(cacheKey(task.chunk())) && !Files.exists(cacheFile(cacheDir, task.chunk()))) {
+                retried.add(task);
+            }
+        }
+        List<ChunkTask> ordered = new ArrayList<>(tasks);
+        ordered.sort(Comparator
+            .comparing((ChunkTask task) -> !retried.contains(task))
+            .thenComparing(task -> -groupTokens.get(task.group()))
+            .thenComparingInt(ChunkTask::group)
+            .thenComparing(task -> -tokens.get(task)));
+        return ordered;
+    }
+
+    private ChunkOutcome processChunk(ChunkTask task, Path cacheDir, ModelCallStats stats) {
+        MigrationSpec chunk = task.chunk();
+        String key = cacheKey(chunk);
+        PromptSizeReport promptSize = PromptSizeReport.empty();
+        TokenAccount account = new TokenAccount();
+        try {
+            Path cacheFile = cacheFile(cacheDir, chunk);
+
+            if (Files.exists(cacheFile)) {
+                FastApiSpec cached = JsonUtils.read(cacheFile, FastApiSpec.class, cacheFormat);
+                usageRecorder.record(chunk, key, TokenUsageRecorder.Source.CACHE,
+                    cacheHitUsage(promptBuilder.userPrompt(chunk, task.context()), cached));
+                return new ChunkOutcome(cached, promptSize, false, false);
+            }
+
+            if (!modelPool.anyHealthy()) {
+                usageRecorder.record(chunk, key, TokenUsageRecorder.Source.FALLBACK, TokenUsage.empty());
+                return new ChunkOutcome(fallback.transform(chunk), promptSize, true, false);
+            }
 
-                FastApiSpec specPart = JsonUtils.readJson(content, FastApiSpec.class);
-                JsonUtils.writeJson(cacheFile, specPart);
-                parts.add(specPart);
-            } catch (Exception ex) {
-                if (isContextLimitError(ex) && chunk.endpoints().size() > 1) {
-                    log.warn("Chunk too large for model context; splitting and retrying", ex);
-                    int smaller = Math.max(1, chunk.endpoints().size() / 2);
-                    for (MigrationSpec sub : MigrationChunker.chunk(chunk, smaller)) {
-                        parts.add(transform(sub, Math.max(1, smaller), cacheDir));
-                    }
-                } else {
-                    log.warn("LLM transform failed for chunk, falling back to deterministic", ex);
-                    parts.add(fallback.transform(chunk));
+            if (!deadline.allows(promptTokens(promptBuilder.userPrompt(chunk, task.context()), FastApiSpec.class))) {
+                deadline.markPending(key);
+                usageRecorder.record(chunk, key, TokenUsageRecorder.Source.FALLBACK, TokenUsage.empty());
+                return new ChunkOutcome(fallback.transform(chunk), promptSize, false, true);
+            }
+
+            promptSize = promptBuilder.sizeReport(chunk);
+            log.debug("Prompt size for {} endpoint(s): ~{} tokens as JSON, ~{} tokens compact ({} saved)",
+                chunk.endpoints().size(), promptSize.jsonTokens(), promptSize.compactTokens(), promptSize.savedTokens());
+
+            ChunkResult result = transformChunk(chunk, task.context(), stats, account);
+            if (result.complete()) {
+                JsonUtils.write(cacheFile, result.spec(), cacheFormat);
+            } else {
+                deadline.markPending(key);
+            }
+            usageRecorder.record(chunk, key, TokenUsageRecorder.Source.LLM, account.total());
+            return new ChunkOutcome(result.spec(), promptSize, false, false);
+        } catch (Exception ex) {
+            if (isContextLimitError(ex) && chunk.endpoints().size() > 1) {
+                usageRecorder.record(chunk, key, TokenUsageRecorder.Source.SPLIT, account.total());
+                log.warn("Chunk too large for model context; splitting and retrying", ex);
+                // the halves run on this worker, so the split stays within the pool's concurrency; they carry only
+                // their own DTOs, since the shared context block may be what overflowed
+                int smaller = Math.max(1, chunk.endpoints().size() / 2);
+                List<FastApiSpec> subParts = new ArrayList<>();
+                PromptSizeReport splitSize = PromptSizeReport.empty();
+                boolean skipped = false;
+                boolean deferred = false;
+                for (MigrationSpec sub : MigrationChunker.chunk(chunk, smaller)) {
+                    ChunkOutcome outcome = processChunk(
+                        new ChunkTask(task.module(), task.index(), task.group(), sub, null), cacheDir, stats);
+                    subParts.add(outcome.spec());
+                    splitSize = splitSize.plus(outcome.promptSize());
+                    skipped |= outcome.skipped();
+                    deferred |= outcome.deferred();
                 }
+                return new ChunkOutcome(FastApiSpecMerger.merge(subParts), splitSize, skipped, deferred);
             }
+            log.warn("LLM transform failed for chunk, falling back to deterministic", ex);
+            deadline.markPending(key);
+            usageRecorder.record(chunk, key, TokenUsageRecorder.Source.FALLBACK, account.total());
+            return new ChunkOutcome(fallback.transform(chunk), promptSize, false, false);
         }
+    }
 
-        return FastApiSpecMerger.merge(parts);
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while transforming chunks", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Chunk transform failed", ex.getCause());
+        }
     }
+
+    private ChunkResult transformChunk(MigrationSpec chunk, MigrationSpec context, ModelCallStats stats,
+                                       TokenAccount account) {
+        List<FastApiSpec> accepted = new ArrayList<>();
+        MigrationSpec pending = chunk;
+        String userPrompt = promptBuilder.userPrompt(chunk, context);
+
+        for (int attempt = 0; attempt <= repairAttempts; attempt++) {
+            if (!deadline.allows(promptTokens(userPrompt, FastApiSpec.class))) {
+                log.warn("Time budget exhausted; not sending LLM request for {} endpoint(s) and {} DTO(s)",
+                    pending.endpoints().size(), pending.dtos().size());
+                break;
+            }
+            try {
+                FastApiSpecValidator.Result result = FastApiSpecValidator.validate(pending, callModel(userPrompt, stats, FastApiSpec.class, account));
+                accepted.add(result.accepted());
+                pending = result.remaining();
+                if (result.complete()) {
+                    return new ChunkResult(FastApiSpecMerger.merge(accepted), true);
+                }
+                log.warn("LLM answer missing or invalid for {} endpoint(s) and {} DTO(s) (attempt {})",
+                    pending.endpoints().size(), pending.dtos().size(), attempt + 1);
+            } catch (ModelCircuitBreaker.CircuitOpenException ex) {
+                break;
+            } catch (RuntimeException ex) {
+                if (accepted.isEmpty() && isContextLimitError(ex)) {
+                    throw ex;
+                }
+                if (!modelPool.anyHealthy()) {
+                    break;
+                }
+                log.warn("LLM answer could not be used (attempt {})", attempt + 1, ex);
+            }
+            userPrompt = promptBuilder.repairPrompt(pending);
+        }
+
+        log.warn("LLM answer incomplete; falling back to deterministic for {} endpoint(s) and {} DTO(s)",
+            pending.endpoints().size(), pending.dtos().size());
+        accepted.add(fallback.transform(pending));
+        return new ChunkResult(FastApiSpecMerger.merge(accepted), false);
+    }
+
+    private <T> T callModel(String userPrompt, ModelCallStats stats, Class<T> type, TokenAccount account) {
+        Set<ModelPool.Member> tried = new HashSet<>();
+        String content = null;
+        RuntimeException last = null;
+        while (content == null) {
+            ModelPool.Lease lease = modelPool.acquire(tried);
+            if (lease == null) {
+                throw last != null ? last : new ModelCircuitBreaker.CircuitOpenException();
+            }
+            try (lease) {
+                ModelPool.Member member = lease.member();
+                tried.add(member);
+                content = member.breaker().call(() -> request(member, userPrompt, type, stats, account),
+                    ex -> !isContextLimitError(ex));
+                if (content == null) {
+                    content = "";
+                }
+            } catch (RuntimeException ex) {
+                if (isContextLimitError(ex)) {
+                    throw ex;
+                }
+                last = ex;
+                log.warn("Model endpoint {} failed; re-routing to another endpoint", lease.member(), ex);
+            }
+        }
+
+        if (content.isBlank()) {
+            throw new IllegalStateException("LLM returned empty content");
+        }
+        return JsonUtils.readJson(content, type);
+    }
+
+    private String request(ModelPool.Member member, String userPrompt, Class<?> type, ModelCallStats stats,
+                           TokenAccount account) {
+        long start = System.nanoTime();
+        var prompt = member.chatClient().prompt()
+            .system(promptBuilder.systemPrompt(type))
+            .user(userPrompt);
+        if (responseFormat != MigrationProperties.ResponseFormat.TEXT || streamResponses) {
+            prompt = prompt.options(requestOptions.computeIfAbsent(type, this::requestOptions));
+        }
+        if (!streamResponses) {
+            ChatResponse response = prompt.call().chatResponse();
+            String content = response == null || response.getResult() == null
+                ? null
+                : response.getResult().getOutput().getText();
+            long latency = System.nanoTime() - start;
+            stats.record(latency, -1);
+            latencyHistory.record(promptTokens(userPrompt, type), latency);
+            account.add(usage(response == null ? null : response.getMetadata().getUsage(), userPrompt, type, content));
+            return content;
+        }
+        StringBuilder content = new StringBuilder();
+        long[] firstToken = {-1};
+        Usage[] usage = {null};
+        // a structured answer is complete once its object closes, so the rest of the stream is not waited for;
+        // the usage chunk the server sends after the last token is then never received and the call is
+        // recorded with estimated usage, which is the price of not waiting for it
+        JsonObjectTracker tracker = responseFormat != MigrationProperties.ResponseFormat.TEXT ? new JsonObjectTracker() : null;
+        prompt.stream().chatResponse()
+            .takeUntil(response -> {
+                if (response.getMetadata() != null && reported(response.getMetadata().getUsage())) {
+                    usage[0] = response.getMetadata().getUsage();
+                }
+                String token = response.getResult() == null ? null : response.getResult().getOutput().getText();
+                if (token == null) {
+                    return false;
+                }
+                if (firstToken[0] < 0) {
+                    firstToken[0] = System.nanoTime() - start;
+                }
+                content.append(token);
+                return tracker != null && tracker.feed(token);
+            })
+            .blockLast();
+        long latency = System.nanoTime() - start;
+        stats.record(latency, firstToken[0]);
+        latencyHistory.record(promptTokens(userPrompt, type), latency);
+        account.add(usage(usage[0], userPrompt, type, content.toString()));
+        return content.toString();
+    }
+
+    /**
+     * Per-request options selecting the configured response format, and asking for the usage chunk at the end of a
+     * stream ({@code stream_options.include_usage}) when responses are streamed. {@code JSON_SCHEMA} needs a fixed
+     * schema, so types whose JSON has free-form keys (the batch answer, keyed by module name) get
+     * {@code json_object} instead.
+     */
+    private OpenAiChatOptions requestOptions(Class<?> type) {
+        OpenAiChatOptions.Builder options = OpenAiChatOptions.builder();
+        if (responseFormat != MigrationProperties.ResponseFormat.TEXT) {
+            options.responseFormat(responseFormat == MigrationProperties.ResponseFormat.JSON_SCHEMA && type == FastApiSpec.class
+                ? ResponseFormat.builder()
+                    .type(ResponseFormat.Type.JSON_SCHEMA)
+                    .jsonSchema(new BeanOutputConverter<>(FastApiSpec.class).getJsonSchema())
+                    .build()
+                : ResponseFormat.builder().type(ResponseFormat.Type.JSON_OBJECT).build());
+        }
+        if (streamResponses) {
+            options.streamUsage(true);
+        }
+        return options.build();
+    }
+
+    /**
+     * Uses the usage reported by the server, or estimates it from the prompt and answer text if it reported none.
+     */
+    private TokenUsage usage(Usage reported, String userPrompt, Class<?> type, String content) {
+        if (reported(reported)) {
+            return TokenUsage.call(reported.getPromptTokens(),
+                reported.getCompletionTokens() == null ? 0 : reported.getCompletionTokens(), false);
+        }
+        return TokenUsage.call(
+            promptTokens(userPrompt, type), PromptSizeReport.estimateTokens(content), true);
+    }
+
+    private boolean reported(Usage usage) {
+        return usage != null && usage.getPromptTokens() != null && usage.getPromptTokens() > 0;
+    }
+
+    private TokenUsage cacheHitUsage(String userPrompt, FastApiSpec cached) {
+        return TokenUsage.cacheHit(
+            promptTokens(userPrompt, FastApiSpec.class), PromptSizeReport.estimateTokens(JsonUtils.toJson(cached)));
+    }
+
+    /**
+     * Estimated prompt tokens of a request answered as {@code type}, including the system prompt {@link #request}
+     * sends for that type; the unit for latency history, the time budget and usage estimates.
+     */
+    private int promptTokens(String userPrompt, Class<?> type) {
+        return PromptSizeReport.estimateTokens(promptBuilder.systemPrompt(type)) + PromptSizeReport.estimateTokens(userPrompt);
+    }
+
     private boolean isContextLimitError(Exception ex) {
         String message = ex.getMessage();
         if (message != null && (message.contains("context length") || message.contains("tokens to keep"))) {
@@ -98,4 +700,9 @@ public class SpringAiTransformService implements AiTransformService {
         return false;
     }
 
+    private record ChunkResult(FastApiSpec spec, boolean complete) {}
+
+    private record ChunkTask(int module, int index, int group, MigrationSpec chunk, MigrationSpec context) {}
+
+    private record ChunkOutcome(FastApiSpec spec, PromptSizeReport promptSize, boolean skipped, boolean deferred) {}
 }
@@ -0,0 +1,17 @@
+package ai.migrator.transform;
+
+/**
+ * Accumulates the {@link TokenUsage} of the model calls made for a single chunk.
+ */
+class TokenAccount {
+
+    private TokenUsage total = TokenUsage.empty();
+
+    synchronized void add(TokenUsage usage) {
+        total = total.plus(usage);
+    }
+
+    synchronized TokenUsage total() {
+        return total;
+    }
+}
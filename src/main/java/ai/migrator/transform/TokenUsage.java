@@ -0,0 +1,56 @@
+package ai.migrator.transform;
+
+/**
+ * Token counts for one or more model calls. {@code estimatedCalls} counts calls whose server reported no usage,
+ * so their tokens come from the character-based estimate; {@code saved*} is what cache hits would have cost.
+ */
+public record TokenUsage(long calls,
+                         long estimatedCalls,
+                         long promptTokens,
+                         long completionTokens,
+                         long cacheHits,
+                         long savedPromptTokens,
+                         long savedCompletionTokens) {
+
+    public static TokenUsage empty() {
+        return new TokenUsage(0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public static TokenUsage call(long promptTokens, long completionTokens, boolean estimated) {
+        return new TokenUsage(1, estimated ? 1 : 0, promptTokens, completionTokens, 0, 0, 0);
+    }
+
+    public static TokenUsage cacheHit(long promptTokens, long completionTokens) {
+        return new TokenUsage(0, 0, 0, 0, 1, promptTokens, completionTokens);
+    }
+
+    public long totalTokens() {
+        return promptTokens + completionTokens;
+    }
+
+    public long savedTokens() {
+        return savedPromptTokens + savedCompletionTokens;
+    }
+
+    public TokenUsage plus(TokenUsage other) {
+        return new TokenUsage(
+            calls + other.calls,
+            estimatedCalls + other.estimatedCalls,
+            promptTokens + other.promptTokens,
+            completionTokens + other.completionTokens,
+            cacheHits + other.cacheHits,
+            savedPromptTokens + other.savedPromptTokens,
+            savedCompletionTokens + other.savedCompletionTokens
+        );
+    }
+
+    /**
+     * Scales the token counts by {@code share}, used to split the usage of a batched request across modules.
+     * Only one of the shares should count the calls themselves.
+     */
+    public TokenUsage share(double share, boolean countCalls) {
+        return new TokenUsage(countCalls ? calls : 0, countCalls ? estimatedCalls : 0, Math.round(promptTokens * share),
+            Math.round(completionTokens * share), cacheHits, Math.round(savedPromptTokens * share),
+            Math.round(savedCompletionTokens * share));
+    }
+}
@@ -0,0 +1,95 @@
+package ai.migrator.transform;
+
+import ai.migrator.config.MigrationProperties;
+import ai.migrator.generation.VirtualOutputTree;
+import ai.migrator.model.MigrationSpec;
+import ai.migrator.util.DataFormat;
+import ai.migrator.util.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects token usage per chunk during a run and puts {@code token-usage.json} per module (next to
+ * {@code fastapi-spec.json}) and for the whole run under {@code .migrator/} into the output tree. Costs use the configured prices per
+ * million prompt and completion tokens.
+ */
+@Component
+public class TokenUsageRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenUsageRecorder.class);
+    private static final String USAGE_FILE = "token-usage.json";
+
+    private final MigrationProperties properties;
+    private final Map<String, List<ChunkUsage>> modules = new LinkedHashMap<>();
+
+    public TokenUsageRecorder(MigrationProperties properties) {
+        this.properties = properties;
+    }
+
+    public synchronized void reset() {
+        modules.clear();
+    }
+
+    public synchronized void record(MigrationSpec chunk, String key, Source source, TokenUsage usage) {
+        modules.computeIfAbsent(chunk.moduleName(), name -> new ArrayList<>())
+            .add(new ChunkUsage(key, chunk.endpoints().size(), chunk.dtos().size(), source, usage));
+    }
+
+    public synchronized TokenUsage moduleTotal(String moduleName) {
+        TokenUsage total = TokenUsage.empty();
+        for (ChunkUsage chunk : modules.getOrDefault(moduleName, List.of())) {
+            total = total.plus(chunk.usage());
+        }
+        return total;
+    }
+
+    public synchronized void write(VirtualOutputTree tree) {
+        if (modules.isEmpty()) {
+            return;
+        }
+        Map<String, UsageTotals> perModule = new LinkedHashMap<>();
+        TokenUsage run = TokenUsage.empty();
+        for (Map.Entry<String, List<ChunkUsage>> entry : modules.entrySet()) {
+            UsageTotals totals = totals(moduleTotal(entry.getKey()));
+            perModule.put(entry.getKey(), totals);
+            run = run.plus(totals.usage());
+
+            tree.put(".migrator/" + entry.getKey() + "/" + USAGE_FILE,
+                JsonUtils.toBytes(new ModuleReport(entry.getKey(), totals, entry.getValue()), DataFormat.JSON));
+        }
+        UsageTotals runTotals = totals(run);
+        tree.put(".migrator/" + USAGE_FILE, JsonUtils.toBytes(new RunReport(runTotals, perModule), DataFormat.JSON));
+
+        log.info("Token usage: {} call(s), {} prompt + {} completion tokens ({} estimated call(s)), cost {}; "
+                + "{} cache hit(s) saved ~{} tokens, {}",
+            run.calls(), run.promptTokens(), run.completionTokens(), run.estimatedCalls(),
+            String.format("%.4f", runTotals.cost()), run.cacheHits(), run.savedTokens(),
+            String.format("%.4f", runTotals.savedCost()));
+    }
+
+    private UsageTotals totals(TokenUsage usage) {
+        double promptPrice = properties.getPromptTokenPrice() / 1_000_000d;
+        double completionPrice = properties.getCompletionTokenPrice() / 1_000_000d;
+        return new UsageTotals(usage,
+            usage.promptTokens() * promptPrice + usage.completionTokens() * completionPrice,
+            usage.savedPromptTokens() * promptPrice + usage.savedCompletionTokens() * completionPrice);
+    }
+
+    public enum Source {
+        LLM, CACHE, FALLBACK, SPLIT, BATCH
+    }
+
+    public record ChunkUsage(String chunk, int endpoints, int dtos, Source source, TokenUsage usage) {}
+
+    public record UsageTotals(TokenUsage usage, double cost, double savedCost) {}
+
+    public record ModuleReport(String module, UsageTotals total, List<ChunkUsage> chunks) {}
+
+    public record RunReport(UsageTotals total, Map<String, UsageTotals> modules) {}
+}
@@ -0,0 +1,92 @@
+package ai.migrator.transform;
+
+import ai.migrator.model.*;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Decides which endpoints and DTOs {@link DeterministicTransformService} can map confidently. Anything using
+ * generic wrappers, {@code Object}/{@code Map}, type names that are neither scalars nor known DTOs, or custom
+ * annotations is routed to the LLM.
+ */
+@Component
+public class TransformClassifier {
+
+    private final TypeMapper typeMapper;
+
+    public TransformClassifier(TypeMapper typeMapper) {
+        this.typeMapper = typeMapper;
+    }
+
+    public Classification classify(MigrationSpec spec) {
+        Set<String> dtoNames = new HashSet<>();
+        for (DtoSpec dto : spec.dtos()) {
+            dtoNames.add(dto.name());
+        }
+
+        List<DtoSpec> aiDtos = new ArrayList<>();
+        List<DtoSpec> localDtos = new ArrayList<>();
+        for (DtoSpec dto : spec.dtos()) {
+            boolean confident = dto.fields().stream().allMatch(f -> isConfident(f.type(), dtoNames));
+            (confident ? localDtos : aiDtos).add(dto);
+        }
+
+        List<EndpointSpec> aiEndpoints = new ArrayList<>();
+        List<EndpointSpec> localEndpoints = new ArrayList<>();
+        for (EndpointSpec endpoint : spec.endpoints()) {
+            (isConfident(endpoint, dtoNames) ? localEndpoints : aiEndpoints).add(endpoint);
+        }
+
+        return new Classification(aiEndpoints, localEndpoints, aiDtos, localDtos);
+    }
+
+    private boolean isConfident(EndpointSpec endpoint, Set<String> dtoNames) {
+        if (endpoint.customAnnotations() != null && !endpoint.customAnnotations().isEmpty()) {
+            return false;
+        }
+        if (!isConfident(endpoint.requestBody(), dtoNames) || !isConfident(endpoint.responseBody(), dtoNames)) {
+            return false;
+        }
+        for (List<ParameterSpec> params : List.of(endpoint.queryParams(), endpoint.pathParams(), endpoint.headerParams())) {
+            for (ParameterSpec param : params) {
+                if (!isConfident(param.type(), dtoNames)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isConfident(TypeRef type, Set<String> dtoNames) {
+        if (type == null) {
+            return true;
+        }
+        if (type.collection()) {
+            return "List".equals(type.collectionType()) && isConfidentName(type.elementType(), dtoNames);
+        }
+        return isConfidentName(type.name(), dtoNames);
+    }
+
+    private boolean isConfidentName(String javaName, Set<String> dtoNames) {
+        if (javaName == null || javaName.isBlank() || javaName.indexOf('<') >= 0) {
+            return false;
+        }
+        if (typeMapper.isScalarType(javaName)) {
+            return true;
+        }
+        int idx = javaName.lastIndexOf('.');
+        return dtoNames.contains(idx == -1 ? javaName : javaName.substring(idx + 1));
+    }
+
+    public record Classification(
+        List<EndpointSpec> aiEndpoints,
+        List<EndpointSpec> localEndpoints,
+        List<DtoSpec> aiDtos,
+        List<DtoSpec> localDtos
+    ) {
+        public boolean needsAi() {
+            return !aiEndpoints.isEmpty() || !aiDtos.isEmpty();
+        }
+    }
+}
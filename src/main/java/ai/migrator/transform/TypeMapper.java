@@ -0,0 +1,283 @@
+package ai.migrator.transform;
+
+import ai.migrator.config.MigrationProperties;
+import ai.migrator.model.TypeRef;
+import ai.migrator.util.Hashing;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps Java types to Python type hints. Type names are parsed as generics, so {@code Map<String, List<Foo>>},
+ * {@code Optional<Foo>}, {@code Set<Foo>}, arrays and fully qualified names all map, and the result for each
+ * {@link TypeRef} is memoized, since the same handful of types is asked for by every model, router and service
+ * of a module. Scalar and generic type tables come with defaults that {@code migrator.typeMappings} and
+ * {@code migrator.genericTypeMappings} extend or override. A generic type in neither table, such as a
+ * {@code PageDto<UserDto>}, maps to its bare name, since generated models are not generic.
+ */
+@Component
+public class TypeMapper {
+
+    private static final Map<String, String> DEFAULT_TYPES = Map.ofEntries(
+        Map.entry("String", "str"), Map.entry("Character", "str"), Map.entry("char", "str"),
+        Map.entry("Byte", "int"), Map.entry("byte", "int"),
+        Map.entry("Short", "int"), Map.entry("short", "int"),
+        Map.entry("Integer", "int"), Map.entry("int", "int"),
+        Map.entry("Long", "int"), Map.entry("long", "int"),
+        Map.entry("BigInteger", "int"),
+        Map.entry("Double", "float"), Map.entry("double", "float"),
+        Map.entry("Float", "float"), Map.entry("float", "float"),
+        Map.entry("Boolean", "bool"), Map.entry("boolean", "bool"),
+        Map.entry("BigDecimal", "float"),
+        Map.entry("Instant", "datetime"), Map.entry("LocalDateTime", "datetime"),
+        Map.entry("OffsetDateTime", "datetime"), Map.entry("ZonedDateTime", "datetime"),
+        Map.entry("LocalDate", "date"),
+        Map.entry("UUID", "UUID"),
+        Map.entry("Object", "Any")
+    );
+
+    /** Generic types by Python container; an empty container means the type argument is used as is. */
+    private static final Map<String, String> DEFAULT_GENERIC_TYPES = Map.ofEntries(
+        Map.entry("List", "List"), Map.entry("ArrayList", "List"), Map.entry("LinkedList", "List"),
+        Map.entry("Collection", "List"), Map.entry("Iterable", "List"), Map.entry("Flux", "List"),
+        Map.entry("Set", "Set"), Map.entry("HashSet", "Set"), Map.entry("LinkedHashSet", "Set"),
+        Map.entry("TreeSet", "Set"), Map.entry("SortedSet", "Set"),
+        Map.entry("Map", "Dict"), Map.entry("HashMap", "Dict"), Map.entry("LinkedHashMap", "Dict"),
+        Map.entry("TreeMap", "Dict"), Map.entry("SortedMap", "Dict"),
+        Map.entry("Optional", "Optional"),
+        Map.entry("ResponseEntity", ""), Map.entry("HttpEntity", ""), Map.entry("Mono", ""),
+        Map.entry("CompletableFuture", ""), Map.entry("CompletionStage", ""), Map.entry("Callable", ""),
+        Map.entry("DeferredResult", "")
+    );
+
+    private static final Set<String> SCALAR_TYPES = Set.of(
+        "String", "Character", "char", "Byte", "byte", "Short", "short", "Integer", "int", "Long", "long",
+        "BigInteger", "Double", "double", "Float", "float", "Boolean", "boolean", "BigDecimal",
+        "Instant", "LocalDateTime", "OffsetDateTime", "ZonedDateTime", "LocalDate", "UUID", "Object", "void", "Void"
+    );
+
+    /** Python module each importable name of a mapped type comes from. */
+    private static final Map<String, String> IMPORTED_NAMES = Map.of(
+        "Any", "typing", "Dict", "typing", "List", "typing", "Optional", "typing", "Set", "typing",
+        "datetime", "datetime", "date", "datetime",
+        "UUID", "uuid"
+    );
+
+    private final Map<String, String> types;
+    private final Map<String, String> genericTypes;
+    private final Set<String> scalarTypes;
+    private final Map<TypeRef, String> resolved = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Set<String>>> imports = new ConcurrentHashMap<>();
+    private final String fingerprint;
+
+    public TypeMapper(MigrationProperties properties) {
+        this.types = new HashMap<>(DEFAULT_TYPES);
+        this.types.putAll(properties.getTypeMappings());
+        this.genericTypes = new HashMap<>(DEFAULT_GENERIC_TYPES);
+        this.genericTypes.putAll(properties.getGenericTypeMappings());
+        Set<String> scalars = new HashSet<>(SCALAR_TYPES);
+        scalars.addAll(properties.getTypeMappings().keySet());
+        this.scalarTypes = Set.copyOf(scalars);
+        this.fingerprint = tablesFingerprint(types, genericTypes);
+    }
+
+    /**
+     * SHA-256 of the scalar and generic type tables in use; output mapped with other tables differs.
+     */
+    public String fingerprint() {
+        return fingerprint;
+    }
+
+    private static String tablesFingerprint(Map<String, String> types, Map<String, String> genericTypes) {
+        Hashing.Hasher hasher = Hashing.newSha256();
+        for (Map<String, String> table : List.of(new TreeMap<>(types), new TreeMap<>(genericTypes))) {
+            table.forEach((java, python) -> hasher.put(java).put('\u0000').put(python).put('\u0000'));
+            hasher.put('\u0001');
+        }
+        return hasher.hex();
+    }
+
+    public String mapJavaType(TypeRef type) {
+        if (type == null) {
+            return "Any";
+        }
+        return resolved.computeIfAbsent(type, this::resolve);
+    }
+
+    public boolean isScalarType(String javaName) {
+        return javaName != null && scalarTypes.contains(simpleName(javaName));
+    }
+
+    /**
+     * Returns the names a mapped type imports by module, such as {@code datetime} from {@code datetime} and
+     * {@code UUID} from {@code uuid}, both sorted.
+     */
+    public Map<String, Set<String>> imports(String pythonType) {
+        return imports.computeIfAbsent(pythonType, TypeMapper::scanImports);
+    }
+
+    private String resolve(TypeRef type) {
+        if (type.collection()) {
+            String container = type.collectionType() == null ? "List" : genericTypes.getOrDefault(simpleName(type.collectionType()), "List");
+            String inner = mapName(type.elementType());
+            return container.isEmpty() ? inner : container + "[" + inner + "]";
+        }
+        return mapName(type.name());
+    }
+
+    private String mapName(String javaName) {
+        if (javaName == null || javaName.isBlank()) {
+            return "Any";
+        }
+        Parser parser = new Parser(javaName);
+        try {
+            String mapped = parser.type();
+            parser.skipSpaces();
+            if (parser.pos == javaName.length()) {
+                return mapped;
+            }
+        } catch (IllegalStateException ex) {
+            // not a Java type expression; fall through to the plain name
+        }
+        return simpleName(javaName);
+    }
+
+    private String map(String simpleName, List<String> arguments) {
+        String container = genericTypes.get(simpleName);
+        if (arguments.isEmpty()) {
+            if (container != null) {
+                return container.isEmpty() ? "Any" : container;
+            }
+            return types.getOrDefault(simpleName, simpleName);
+        }
+        if (container == null) {
+            return types.getOrDefault(simpleName, simpleName);
+        }
+        if (container.isEmpty()) {
+            return arguments.get(0);
+        }
+        if (container.equals("Dict") && arguments.size() == 1) {
+            return "Dict[str, " + arguments.get(0) + "]";
+        }
+        if (!container.equals("Dict") && arguments.size() > 1) {
+            return container + "[" + arguments.get(arguments.size() - 1) + "]";
+        }
+        return container + "[" + String.join(", ", arguments) + "]";
+    }
+
+    private static String simpleName(String typeName) {
+        int idx = typeName.lastIndexOf('.');
+        return idx == -1 ? typeName : typeName.substring(idx + 1);
+    }
+
+    private static Map<String, Set<String>> scanImports(String pythonType) {
+        Map<String, Set<String>> names = new TreeMap<>();
+        int start = -1;
+        for (int i = 0; i <= pythonType.length(); i++) {
+            boolean identifier = i < pythonType.length() && Character.isJavaIdentifierPart(pythonType.charAt(i));
+            if (identifier && start < 0) {
+                start = i;
+            } else if (!identifier && start >= 0) {
+                String name = pythonType.substring(start, i);
+                String module = IMPORTED_NAMES.get(name);
+                if (module != null) {
+                    names.computeIfAbsent(module, key -> new TreeSet<>()).add(name);
+                }
+                start = -1;
+            }
+        }
+        names.replaceAll((module, moduleNames) -> Collections.unmodifiableSet(moduleNames));
+        return Collections.unmodifiableMap(names);
+    }
+
+    /**
+     * Recursive descent over a Java type expression, mapping each type as it is parsed.
+     */
+    private final class Parser {
+
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        String type() {
+            skipSpaces();
+            if (peek() == '?') {
+                pos++;
+                skipSpaces();
+                if (text.startsWith("extends", pos) || text.startsWith("super", pos)) {
+                    pos += text.startsWith("extends", pos) ? "extends".length() : "super".length();
+                    return type();
+                }
+                return "Any";
+            }
+            int start = pos;
+            while (pos < text.length() && (Character.isJavaIdentifierPart(text.charAt(pos)) || text.charAt(pos) == '.'
+                && !text.startsWith("...", pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw new IllegalStateException("Expected a type name at " + pos + " in " + text);
+            }
+            String name = simpleName(text.substring(start, pos));
+            List<String> arguments = new ArrayList<>();
+            skipSpaces();
+            if (peek() == '<') {
+                pos++;
+                do {
+                    arguments.add(type());
+                    skipSpaces();
+                } while (consume(','));
+                if (!consume('>')) {
+                    throw new IllegalStateException("Expected '>' at " + pos + " in " + text);
+                }
+            }
+            String mapped = map(name, arguments);
+            skipSpaces();
+            while (peek() == '[' || text.startsWith("...", pos)) {
+                if (text.startsWith("...", pos)) {
+                    pos += 3;
+                } else {
+                    pos++;
+                    skipSpaces();
+                    if (!consume(']')) {
+                        throw new IllegalStateException("Expected ']' at " + pos + " in " + text);
+                    }
+                }
+                mapped = name.equals("byte") && arguments.isEmpty() ? "bytes" : "List[" + mapped + "]";
+                name = "";
+                skipSpaces();
+            }
+            return mapped;
+        }
+
+        void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private boolean consume(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ai.migrator.util;
+
+import java.nio.file.Path;
+
+/**
+ * Encodings for the machine-read metadata and cache files. The binary formats carry the same data model as JSON,
+ * so any file can be dumped back to JSON.
+ */
+public enum DataFormat {
+    JSON("json"),
+    SMILE("smile"),
+    CBOR("cbor");
+
+    private final String extension;
+
+    DataFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public String fileName(String baseName) {
+        return baseName + "." + extension;
+    }
+
+    /**
+     * Returns the format a file was written in, judged by its extension.
+     */
+    public static DataFormat of(Path file) {
+        String name = file.getFileName().toString();
+        for (DataFormat format : values()) {
+            if (name.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalStateException("Unknown metadata format: " + file);
+    }
+}
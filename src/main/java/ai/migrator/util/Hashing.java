@@ -2,19 +2,68 @@ package ai.migrator.util;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
+/**
+ * SHA-256 content hashes as lowercase hex, of whole inputs or fed piece by piece through a {@link Hasher}.
+ */
 public class Hashing {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(Hashing::newDigest);
+
     public static String sha256(String input) {
+        return sha256(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256(byte[] input) {
+        return HEX.formatHex(digest().digest(input));
+    }
+
+    /**
+     * Starts a hash that is fed piece by piece, for keys built from several strings.
+     */
+    public static Hasher newSha256() {
+        return new Hasher(newDigest());
+    }
+
+    private static MessageDigest digest() {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return digest;
+    }
+
+    private static MessageDigest newDigest() {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(input.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hash) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (Exception ex) {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
             throw new IllegalStateException(ex);
         }
     }
+
+    public static final class Hasher {
+        private final MessageDigest digest;
+
+        private Hasher(MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        public Hasher put(String value) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+
+        public Hasher put(char value) {
+            if (value < 0x80) {
+                digest.update((byte) value);
+                return this;
+            }
+            return put(String.valueOf(value));
+        }
+
+        public String hex() {
+            return HEX.formatHex(digest.digest());
+        }
+    }
 }
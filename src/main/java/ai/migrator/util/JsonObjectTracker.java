@@ -0,0 +1,89 @@
+package ai.migrator.util;
+
+/**
+ * Follows the nesting of the first JSON object in a character stream without parsing it. It tells when that
+ * object is complete, and for truncated input it can cut the text after the last complete nested value and
+ * append the missing closing brackets, so whatever the model produced before being cut off can still be used.
+ */
+public final class JsonObjectTracker {
+
+    private final StringBuilder open = new StringBuilder();
+    private boolean started;
+    private boolean inString;
+    private boolean escape;
+    private boolean complete;
+    private int position;
+    private int lastCut = -1;
+    private String lastCutOpen;
+
+    /**
+     * Consumes the next piece of text and returns {@code true} once the first object has been closed. Anything
+     * after that is ignored.
+     */
+    public boolean feed(CharSequence text) {
+        for (int i = 0; i < text.length() && !complete; i++, position++) {
+            char c = text.charAt(i);
+            if (!started) {
+                if (c == '{') {
+                    started = true;
+                    open.append(c);
+                }
+                continue;
+            }
+            if (inString) {
+                if (escape) {
+                    escape = false;
+                } else if (c == '\\') {
+                    escape = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{', '[' -> open.append(c);
+                case '}', ']' -> {
+                    open.setLength(open.length() - 1);
+                    if (open.isEmpty()) {
+                        complete = true;
+                    } else {
+                        lastCut = position + 1;
+                        lastCutOpen = open.toString();
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return complete;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Returns how many characters were consumed: once the object is complete, the length of the text up to and
+     * including its closing brace.
+     */
+    public int consumed() {
+        return position;
+    }
+
+    /**
+     * Returns {@code text} (which must be what was fed, starting at the object) cut after the last complete
+     * nested value and closed, or {@code null} if the object is complete or nothing usable was seen.
+     */
+    public String closeTruncated(CharSequence text) {
+        if (complete || lastCut < 0) {
+            return null;
+        }
+        StringBuilder closed = new StringBuilder(lastCut + lastCutOpen.length());
+        closed.append(text, 0, lastCut);
+        for (int i = lastCutOpen.length() - 1; i >= 0; i--) {
+            closed.append(lastCutOpen.charAt(i) == '{' ? '}' : ']');
+        }
+        return closed.toString();
+    }
+}
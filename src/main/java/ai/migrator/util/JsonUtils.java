@@ -1,22 +1,51 @@
 package ai.migrator.util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.CharBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * JSON binding for the whole migrator on one shared mapper. Files are read and written as streams through cached
+ * readers and writers, so a large analysis is never held as a second, string copy. {@link #configure} can add
+ * Jackson's Blackbird module, which replaces reflective property access with generated lambdas. Metadata and
+ * cache files can also be written as Smile or CBOR, see {@link DataFormat}.
+ */
 public class JsonUtils {
-    private static final ObjectMapper mapper = new ObjectMapper()
-        .registerModule(new Jdk8Module())
-        .registerModule(new JavaTimeModule());
+
+    private static volatile Codec codec = new Codec(false);
+
+    /**
+     * Rebuilds the shared mapper, with or without Blackbird. Meant to be called once at startup.
+     */
+    public static void configure(boolean accelerator) {
+        if (codec.accelerator() != accelerator) {
+            codec = new Codec(accelerator);
+        }
+    }
 
     public static String toPrettyJson(Object obj) {
         try {
-            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(obj);
+            return codec.pretty().writeValueAsString(obj);
         } catch (JsonProcessingException e) {
             throw new IllegalStateException(e);
         }
@@ -24,40 +53,195 @@ public class JsonUtils {
 
     public static String toJson(Object obj) {
         try {
-            return mapper.writeValueAsString(obj);
+            return codec.compact().writeValueAsString(obj);
         } catch (JsonProcessingException e) {
             throw new IllegalStateException(e);
         }
     }
 
+    /**
+     * Reads the first top-level JSON object in {@code content} that binds to {@code type}. Leading prose and code
+     * fences are skipped, anything after the object is ignored, and an object cut off mid-answer is closed after
+     * its last complete nested value. An object that fails to bind is skipped as a whole, never retried from one
+     * of its nested objects; if none binds, the first failure is thrown.
+     */
     public static <T> T readJson(String content, Class<T> type) {
         if (content == null || content.isBlank()) {
             throw new IllegalStateException("Empty content; LLM response was null or blank");
         }
-        try {
-            return mapper.readValue(extractJson(content), type);
-        } catch (IOException e) {
-            throw new IllegalStateException(e);
+        char[] chars = content.toCharArray();
+        IOException failure = null;
+        for (int start = content.indexOf('{'); start >= 0; ) {
+            try {
+                return readFirstValue(chars, start, type);
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            JsonObjectTracker tracker = new JsonObjectTracker();
+            if (!tracker.feed(CharBuffer.wrap(chars, start, chars.length - start))) {
+                break;
+            }
+            start = content.indexOf('{', start + tracker.consumed());
         }
+        throw new IllegalStateException(failure != null ? failure : new IOException("No JSON object in content"));
     }
 
     public static <T> T readJson(Path path, Class<T> type) throws IOException {
-        return mapper.readValue(Files.readString(path), type);
+        try (InputStream in = Files.newInputStream(path)) {
+            return readJson(in, type);
+        }
+    }
+
+    /**
+     * Reads one JSON value from {@code in}, leaving the stream open.
+     */
+    public static <T> T readJson(InputStream in, Class<T> type) throws IOException {
+        return codec.reader(type).readValue(in);
     }
 
     public static void writeJson(Path path, Object obj) throws IOException {
-        Files.writeString(path, toPrettyJson(obj));
+        try (OutputStream out = Files.newOutputStream(path)) {
+            writeJson(out, obj);
+        }
+    }
+
+    /**
+     * Writes {@code obj} as pretty JSON to {@code out}, leaving the stream open.
+     */
+    public static void writeJson(OutputStream out, Object obj) throws IOException {
+        codec.pretty().writeValue(out, obj);
+    }
+
+    /**
+     * Reads a file written by {@link #write} in {@code format}.
+     */
+    public static <T> T read(Path path, Class<T> type, DataFormat format) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return codec.reader(format, type).readValue(in);
+        }
+    }
+
+    /**
+     * Writes {@code obj} to {@code path} in {@code format}; JSON is pretty printed.
+     */
+    public static void write(Path path, Object obj, DataFormat format) throws IOException {
+        try (OutputStream out = Files.newOutputStream(path)) {
+            codec.writer(format).writeValue(out, obj);
+        }
+    }
+
+    public static byte[] toBytes(Object obj, DataFormat format) {
+        try {
+            return codec.writer(format).writeValueAsBytes(obj);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
-    private static String extractJson(String content) {
-        if (content == null) {
-            return null;
+    /**
+     * Writes the metadata file {@code path}, in the format its extension names, to {@code out} as pretty JSON.
+     */
+    public static void dumpAsJson(Path path, OutputStream out) throws IOException {
+        JsonNode tree;
+        try (InputStream in = Files.newInputStream(path)) {
+            tree = codec.reader(DataFormat.of(path), JsonNode.class).readTree(in);
         }
-        int start = content.indexOf('{');
-        int end = content.lastIndexOf('}');
-        if (start >= 0 && end > start) {
-            return content.substring(start, end + 1);
+        codec.writer(DataFormat.JSON).writeValue(out, tree);
+        out.write('\n');
+        out.flush();
+    }
+
+    private static <T> T readFirstValue(char[] chars, int start, Class<T> type) throws IOException {
+        ObjectReader reader = codec.reader(type);
+        try (JsonParser parser = reader.createParser(chars, start, chars.length - start)) {
+            return reader.readValue(parser);
+        } catch (IOException e) {
+            if (!isTruncated(e)) {
+                throw e;
+            }
+            JsonObjectTracker tracker = new JsonObjectTracker();
+            CharBuffer text = CharBuffer.wrap(chars, start, chars.length - start);
+            tracker.feed(text);
+            String closed = tracker.closeTruncated(text);
+            if (closed == null) {
+                throw e;
+            }
+            return reader.readValue(closed);
+        }
+    }
+
+    private static boolean isTruncated(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof JsonEOFException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A mapper per format with its writers and per-type readers. Readers and writers are immutable and
+     * thread-safe, so they are built once instead of on every call.
+     */
+    private static final class Codec {
+        private final boolean accelerator;
+        private final Map<DataFormat, ObjectMapper> mappers = new EnumMap<>(DataFormat.class);
+        private final Map<DataFormat, ObjectWriter> writers = new EnumMap<>(DataFormat.class);
+        private final Map<DataFormat, Map<Class<?>, ObjectReader>> readers = new EnumMap<>(DataFormat.class);
+        private final ObjectWriter compact;
+
+        Codec(boolean accelerator) {
+            this.accelerator = accelerator;
+            mappers.put(DataFormat.JSON, mapper(new ObjectMapper(), accelerator));
+            mappers.put(DataFormat.SMILE, mapper(new ObjectMapper(new SmileFactory()), accelerator));
+            mappers.put(DataFormat.CBOR, mapper(new ObjectMapper(new CBORFactory()), accelerator));
+            for (Map.Entry<DataFormat, ObjectMapper> entry : mappers.entrySet()) {
+                ObjectMapper mapper = entry.getValue();
+                writers.put(entry.getKey(), entry.getKey() == DataFormat.JSON
+                    ? mapper.writerWithDefaultPrettyPrinter()
+                    : mapper.writer());
+                readers.put(entry.getKey(), new ConcurrentHashMap<>());
+            }
+            this.compact = mappers.get(DataFormat.JSON).writer();
+        }
+
+        private static ObjectMapper mapper(ObjectMapper mapper, boolean accelerator) {
+            mapper.registerModule(new Jdk8Module())
+                .registerModule(new JavaTimeModule());
+            if (accelerator) {
+                mapper.registerModule(new BlackbirdModule());
+            }
+            // streams belong to the caller
+            mapper.getFactory()
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return mapper;
+        }
+
+        boolean accelerator() {
+            return accelerator;
+        }
+
+        ObjectWriter pretty() {
+            return writers.get(DataFormat.JSON);
+        }
+
+        ObjectWriter compact() {
+            return compact;
+        }
+
+        ObjectWriter writer(DataFormat format) {
+            return writers.get(format);
+        }
+
+        ObjectReader reader(Class<?> type) {
+            return reader(DataFormat.JSON, type);
+        }
+
+        ObjectReader reader(DataFormat format, Class<?> type) {
+            return readers.get(format).computeIfAbsent(type, mappers.get(format)::readerFor);
         }
-        return content;
     }
 }